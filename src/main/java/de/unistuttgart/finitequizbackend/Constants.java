@@ -9,6 +9,7 @@ public final class Constants {
     //----Game result attributes----
     public static final int MIN_QUESTION_COUNT = 0;
     public static final int MAX_QUESTION_COUNT = 600;
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
 
     //----Overworld result attributes----
 
@@ -18,5 +19,22 @@ public final class Constants {
     public static final int MIN_REWARDS = 0 ;
     public static final long MAX_REWARDS = 10;
 
+    //----Reward attributes----
+    public static final int PERFECT_SCORE_REWARDS = 10;
+    public static final int CAPPED_PERFECT_SCORE_REWARDS = 5;
+    //number of perfect rounds per player and configuration that get the full rewards
+    public static final int MAX_REWARDED_PERFECT_ROUNDS = 3;
+
+    //----Configuration listing attributes----
+    public static final int MIN_CONFIGURATION_PAGE_SIZE = 1;
+    public static final int MAX_CONFIGURATION_PAGE_SIZE = 200;
+
+    //----Bulk question import attributes----
+    public static final int MAX_BULK_QUESTIONS = 1000;
+
+    //----Configuration cloning attributes----
+    public static final int MIN_CLONES = 1;
+    public static final int MAX_CLONES = 50;
+
     private Constants() {}
 }
@@ -0,0 +1,183 @@
+package de.unistuttgart.finitequizbackend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import de.unistuttgart.finitequizbackend.data.Configuration;
+import de.unistuttgart.finitequizbackend.data.Question;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This cache keeps configurations (including their questions and answers) in memory, so that repeated game starts
+ * of the same configuration do not reload the whole object graph from the database.
+ *
+ * The cache is bounded by the number of cached questions and answers instead of the number of configurations.
+ * Concurrent misses for the same configuration are coalesced, so only one of them loads it from the database.
+ * Hit, miss and eviction counters are published as "cache.*" metrics with the tag cache=configurations.
+ */
+@Component
+public class ConfigurationCache {
+
+    static final String CACHE_NAME = "configurations";
+
+    private final Cache<UUID, Configuration> cache;
+    private final RequestCoalescer<UUID, Configuration> coalescer;
+
+    /**
+     * Counts all invalidations, so that a load which raced with an invalidation does not put its result into the cache.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Loads check the invalidations and put their result under the read lock, invalidations count and remove under the
+     * write lock, so that no invalidation can happen between the check and the put.
+     */
+    private final ReadWriteLock invalidationLock = new ReentrantReadWriteLock();
+
+    public ConfigurationCache(
+        @Value("${finitequiz.cache.configurations.max-weight:50000}") final long maxWeight,
+        @Value("${finitequiz.cache.configurations.expire-after-write:10m}") final Duration expireAfterWrite,
+        final MeterRegistry meterRegistry
+    ) {
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((final UUID id, final Configuration configuration) -> weigh(configuration))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.coalescer = new RequestCoalescer<>(CACHE_NAME, meterRegistry);
+    }
+
+    /**
+     * Returns the cached configuration or loads it with the given loader.
+     * The loader must return a configuration whose questions and answers are fully initialized.
+     * Callers that miss the cache while the same configuration is already being loaded wait for that load.
+     *
+     * @param id     the id of the configuration
+     * @param loader loads the configuration if it is not cached
+     * @return the cached or loaded configuration
+     */
+    public Configuration get(final UUID id, final Function<UUID, Configuration> loader) {
+        final Configuration cachedConfiguration = cache.getIfPresent(id);
+        if (cachedConfiguration != null) {
+            return cachedConfiguration;
+        }
+        return coalescer.load(
+            id,
+            key -> {
+                final long invalidationsBeforeLoad = invalidations.get();
+                final Configuration configuration = loader.apply(key);
+                invalidationLock.readLock().lock();
+                try {
+                    if (invalidations.get() == invalidationsBeforeLoad) {
+                        cache.put(key, configuration);
+                    }
+                } finally {
+                    invalidationLock.readLock().unlock();
+                }
+                return configuration;
+            }
+        );
+    }
+
+    /**
+     * Removes a configuration from the cache.
+     * If a transaction is active, the configuration is removed again after the transaction completed, so that a
+     * concurrent read cannot put the old state back into the cache before the change is committed.
+     *
+     * @param id the id of the configuration that changed
+     */
+    public void invalidate(final UUID id) {
+        withInvalidationLock(() -> invalidateNow(id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(final int status) {
+                        withInvalidationLock(() -> invalidateNow(id));
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Removes all configurations from the cache.
+     */
+    public void invalidateAll() {
+        withInvalidationLock(() -> {
+            coalescer.forgetAll();
+            cache.invalidateAll();
+        });
+    }
+
+    /**
+     * @return a snapshot of the hit, miss and eviction counters
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the coalescer that loads missing configurations
+     */
+    public RequestCoalescer<UUID, Configuration> getCoalescer() {
+        return coalescer;
+    }
+
+    /**
+     * Removes the configuration and detaches its load in flight, which may have read the configuration before the
+     * change.
+     */
+    private void invalidateNow(final UUID id) {
+        coalescer.forget(id);
+        cache.invalidate(id);
+    }
+
+    private void withInvalidationLock(final Runnable invalidation) {
+        invalidationLock.writeLock().lock();
+        try {
+            invalidations.incrementAndGet();
+            invalidation.run();
+        } finally {
+            invalidationLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Estimates the memory footprint of a configuration by the number of questions and answers it contains.
+     *
+     * @param configuration the configuration to weigh
+     * @return the weight of the configuration
+     */
+    private static int weigh(final Configuration configuration) {
+        int weight = 1;
+        if (configuration.getQuestions() == null) {
+            return weight;
+        }
+        for (final Question question : configuration.getQuestions()) {
+            weight++;
+            if (question.getRightAnswer() != null) {
+                weight += question.getRightAnswer().size();
+            }
+            if (question.getWrongAnswers() != null) {
+                weight += question.getWrongAnswers().size();
+            }
+        }
+        return weight;
+    }
+}
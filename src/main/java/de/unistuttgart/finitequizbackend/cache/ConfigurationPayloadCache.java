@@ -0,0 +1,167 @@
+package de.unistuttgart.finitequizbackend.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.unistuttgart.finitequizbackend.data.Configuration;
+import de.unistuttgart.finitequizbackend.data.mapper.ConfigurationMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * This cache keeps the serialized JSON of configurations, so that they can be written to the response without mapping
+ * and serializing the questions again. Each entry belongs to one version of a configuration and is replaced as soon as
+ * a newer version is requested.
+ *
+ * The cache is bounded by the number of cached bytes.
+ */
+@Component
+public class ConfigurationPayloadCache {
+
+    static final String CACHE_NAME = "configuration-payloads";
+
+    private final boolean enabled;
+    private final boolean gzipEnabled;
+    private final Cache<UUID, SerializedConfiguration> cache;
+    private final ConfigurationMapper configurationMapper;
+    private final ObjectMapper objectMapper;
+
+    public ConfigurationPayloadCache(
+        @Value("${finitequiz.cache.configuration-payloads.enabled:false}") final boolean enabled,
+        @Value("${finitequiz.cache.configuration-payloads.gzip:true}") final boolean gzipEnabled,
+        @Value("${finitequiz.cache.configuration-payloads.max-bytes:67108864}") final long maxBytes,
+        final ConfigurationMapper configurationMapper,
+        final ObjectMapper objectMapper,
+        final MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.gzipEnabled = gzipEnabled;
+        this.configurationMapper = configurationMapper;
+        this.objectMapper = objectMapper;
+        this.cache =
+            Caffeine
+                .newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((final UUID id, final SerializedConfiguration payload) -> payload.size())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @return true if configurations should be served from this cache
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true if configurations are served from this cache with a gzip compressed copy
+     */
+    public boolean isGzipEnabled() {
+        return enabled && gzipEnabled;
+    }
+
+    /**
+     * Returns the serialized configuration, serializing it if the cached entry is missing or belongs to another
+     * version of the configuration.
+     *
+     * @param configuration the configuration to serialize, its questions must be initialized
+     * @return the serialized configuration
+     */
+    public SerializedConfiguration get(final Configuration configuration) {
+        final SerializedConfiguration cachedPayload = cache.getIfPresent(configuration.getId());
+        if (cachedPayload != null && cachedPayload.getVersion() == configuration.getVersion()) {
+            return cachedPayload;
+        }
+        final SerializedConfiguration payload = serialize(configuration);
+        cache
+            .asMap()
+            .merge(
+                configuration.getId(),
+                payload,
+                (oldPayload, newPayload) -> oldPayload.getVersion() > newPayload.getVersion() ? oldPayload : newPayload
+            );
+        return payload;
+    }
+
+    /**
+     * Removes the serialized configuration from the cache.
+     *
+     * @param id the id of the configuration that changed
+     */
+    public void invalidate(final UUID id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * @return the number of bytes of all cached payloads
+     */
+    public long getCachedBytes() {
+        cache.cleanUp();
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private SerializedConfiguration serialize(final Configuration configuration) {
+        try {
+            final byte[] json = objectMapper.writeValueAsBytes(
+                configurationMapper.configurationToConfigurationDTO(configuration)
+            );
+            return new SerializedConfiguration(configuration.getVersion(), json, gzipEnabled ? gzip(json) : null);
+        } catch (final JsonProcessingException exception) {
+            throw new IllegalStateException("configuration could not be serialized", exception);
+        }
+    }
+
+    private static byte[] gzip(final byte[] bytes) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(bytes);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * The serialized JSON of one version of a configuration.
+     */
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class SerializedConfiguration {
+
+        /**
+         * The version of the serialized configuration.
+         */
+        long version;
+
+        /**
+         * The configuration serialized as JSON.
+         */
+        byte[] json;
+
+        /**
+         * The gzip compressed JSON, null if compression is disabled.
+         */
+        @Nullable
+        byte[] gzip;
+
+        int size() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
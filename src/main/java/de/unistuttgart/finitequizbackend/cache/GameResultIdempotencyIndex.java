@@ -0,0 +1,85 @@
+package de.unistuttgart.finitequizbackend.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.unistuttgart.finitequizbackend.data.GameResultDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This index remembers the responses to recently submitted game results by their idempotency key, so that retried
+ * submissions are answered without touching the database or the overworld-backend.
+ *
+ * The index only knows the results submitted to this instance. Retries that reach another instance are detected by
+ * the primary key of game_result_idempotency_key.
+ */
+@Component
+public class GameResultIdempotencyIndex {
+
+    static final String CACHE_NAME = "idempotency-keys";
+
+    private final Cache<String, GameResultDTO> cache;
+
+    public GameResultIdempotencyIndex(
+        @Value("${finitequiz.idempotency.max-keys:100000}") final long maxKeys,
+        @Value("${finitequiz.idempotency.expire-after-write:24h}") final Duration expireAfterWrite,
+        final MeterRegistry meterRegistry
+    ) {
+        this.cache = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterWrite(expireAfterWrite).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @param userId         the id of the user that submitted the result
+     * @param idempotencyKey the idempotency key of the submission
+     * @return the response to the first submission with the key, null if the key is unknown
+     */
+    @Nullable
+    public GameResultDTO get(final String userId, final String idempotencyKey) {
+        return cache.getIfPresent(createKey(userId, idempotencyKey));
+    }
+
+    /**
+     * Remembers the response to a submission.
+     *
+     * @param userId         the id of the user that submitted the result
+     * @param idempotencyKey the idempotency key of the submission
+     * @param gameResultDTO  the response to the submission
+     */
+    public void put(final String userId, final String idempotencyKey, final GameResultDTO gameResultDTO) {
+        cache.put(createKey(userId, idempotencyKey), gameResultDTO);
+    }
+
+    /**
+     * Remembers the response to a submission as soon as the current transaction is committed, so that a retry is not
+     * answered from the index if saving the result fails. Without a transaction it is remembered immediately.
+     *
+     * @param userId         the id of the user that submitted the result
+     * @param idempotencyKey the idempotency key of the submission
+     * @param gameResultDTO  the response to the submission
+     */
+    public void putAfterCommit(final String userId, final String idempotencyKey, final GameResultDTO gameResultDTO) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(userId, idempotencyKey, gameResultDTO);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(userId, idempotencyKey, gameResultDTO);
+                }
+            }
+        );
+    }
+
+    private static String createKey(final String userId, final String idempotencyKey) {
+        return userId + "/" + idempotencyKey;
+    }
+}
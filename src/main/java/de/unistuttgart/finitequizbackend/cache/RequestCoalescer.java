@@ -0,0 +1,112 @@
+package de.unistuttgart.finitequizbackend.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The RequestCoalescer.class makes sure that concurrent loads of the same key are only executed once.
+ * The first caller executes the load, all callers that arrive while the load is in flight wait for it and share
+ * its result (or its exception).
+ *
+ * The number of executed and coalesced loads is published as "finitequiz.coalescer.requests" metric,
+ * tagged with the name of the coalescer and result=loaded or result=coalesced.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the loaded values
+ */
+public class RequestCoalescer<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter loadedCounter;
+    private final Counter coalescedCounter;
+
+    public RequestCoalescer(final String name, final MeterRegistry meterRegistry) {
+        this.loadedCounter = createCounter(name, "loaded", meterRegistry);
+        this.coalescedCounter = createCounter(name, "coalesced", meterRegistry);
+    }
+
+    /**
+     * Loads the value for the given key or waits for a load of the same key that is already in flight.
+     *
+     * @param key    the key to load
+     * @param loader loads the value of the key
+     * @return the loaded value
+     */
+    public V load(final K key, final Function<K, V> loader) {
+        final CompletableFuture<V> load = new CompletableFuture<>();
+        final CompletableFuture<V> runningLoad = inFlight.putIfAbsent(key, load);
+        if (runningLoad != null) {
+            coalescedCounter.increment();
+            return join(runningLoad);
+        }
+        loadedCounter.increment();
+        try {
+            final V value = loader.apply(key);
+            load.complete(value);
+            return value;
+        } catch (final RuntimeException | Error exception) {
+            load.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Detaches the load of the key that is in flight, so that later callers start a new load instead of waiting for
+     * it, e.g. because the value changed after the load started. Callers that already wait still get its result.
+     *
+     * @param key the key whose load should be detached
+     */
+    public void forget(final K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Detaches all loads that are in flight.
+     */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    /**
+     * @return the number of loads that were executed
+     */
+    public long getLoadedCount() {
+        return (long) loadedCounter.count();
+    }
+
+    /**
+     * @return the number of callers that waited for a load of another caller
+     */
+    public long getCoalescedCount() {
+        return (long) coalescedCounter.count();
+    }
+
+    private static <V> V join(final CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (exception.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw exception;
+        }
+    }
+
+    private static Counter createCounter(final String name, final String result, final MeterRegistry meterRegistry) {
+        return Counter
+            .builder("finitequiz.coalescer.requests")
+            .description("Number of loads that were executed or coalesced with a load in flight")
+            .tag("name", name)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
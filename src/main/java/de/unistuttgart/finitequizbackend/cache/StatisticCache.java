@@ -0,0 +1,429 @@
+package de.unistuttgart.finitequizbackend.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+/**
+ * This cache keeps the computed statistics of each configuration and serves them stale while they are revalidated.
+ *
+ * An entry becomes stale when a game result of its configuration is saved on this instance, or after the refresh
+ * interval (to pick up game results saved by other instances). A stale entry is still served for up to the maximal
+ * staleness, while a single background refresh per entry recomputes it; afterwards the caller waits for the refresh.
+ *
+ * Each entry has an entity tag derived from its content, so clients can skip unchanged statistics.
+ * The served entries are counted as "finitequiz.cache.statistics.requests", tagged with result=fresh, result=stale or
+ * result=loaded.
+ */
+@Component
+@Slf4j
+public class StatisticCache {
+
+    static final String CACHE_NAME = "statistics";
+
+    private final boolean enabled;
+    private final long refreshIntervalNanos;
+    private final long maxStalenessNanos;
+    private final Cache<Key, Entry> cache;
+    private final ConcurrentHashMap<Key, CompletableFuture<Entry>> refreshes = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented whenever the statistics of a configuration are invalidated, so that refreshes that started before
+     * are not stored. Only configurations that were invalidated at least once have a generation.
+     */
+    private final ConcurrentHashMap<UUID, Long> generations = new ConcurrentHashMap<>();
+
+    /**
+     * The latest time each statistic without entry was marked stale while it was loaded, so that the loaded entry
+     * stays stale if the game result that caused the mark may be missing in it.
+     */
+    private final ConcurrentHashMap<Key, Long> marksDuringLoad = new ConcurrentHashMap<>();
+
+    /**
+     * The names of the cached statistics, so that the entries of a configuration can be looked up directly.
+     */
+    private final Set<String> statistics = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+    private final ObjectMapper objectMapper;
+
+    private final Counter freshCounter;
+    private final Counter staleCounter;
+    private final Counter loadedCounter;
+
+    public StatisticCache(
+        @Value("${finitequiz.cache.statistics.enabled:true}") final boolean enabled,
+        @Value("${finitequiz.cache.statistics.max-size:1000}") final long maxSize,
+        @Value("${finitequiz.cache.statistics.refresh-interval:60s}") final Duration refreshInterval,
+        @Value("${finitequiz.cache.statistics.max-staleness:30s}") final Duration maxStaleness,
+        @Value("${finitequiz.cache.statistics.refresh-threads:2}") final int refreshThreads,
+        final ObjectMapper objectMapper,
+        final MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor =
+            new ThreadPoolExecutor(
+                refreshThreads,
+                refreshThreads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>((int) Math.min(maxSize, Integer.MAX_VALUE)),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "statistic-refresh-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.freshCounter = createCounter("fresh", meterRegistry);
+        this.staleCounter = createCounter("stale", meterRegistry);
+        this.loadedCounter = createCounter("loaded", meterRegistry);
+    }
+
+    /**
+     * Returns a statistic of a configuration from the cache. Stale statistics are returned while they are refreshed in
+     * the background, unless they are stale for longer than the maximal staleness.
+     *
+     * @param configurationId the id of the configuration
+     * @param statistic       the name of the statistic
+     * @param loader          computes the statistic, it is not cached if the loader fails
+     * @return the statistic with its entity tag
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CachedStatistic<T> get(final UUID configurationId, final String statistic, final Supplier<T> loader) {
+        if (!enabled) {
+            final T value = loader.get();
+            return new CachedStatistic<>(value, createETag(value));
+        }
+        statistics.add(statistic);
+        final Key key = new Key(configurationId, statistic);
+        final Entry entry = cache.getIfPresent(key);
+        final long now = System.nanoTime();
+        if (entry != null) {
+            final long staleFor = entry.getStaleFor(now, refreshIntervalNanos);
+            if (staleFor < 0) {
+                freshCounter.increment();
+                return (CachedStatistic<T>) entry.statistic;
+            }
+            if (staleFor < maxStalenessNanos) {
+                staleCounter.increment();
+                refresh(key, loader, true);
+                return (CachedStatistic<T>) entry.statistic;
+            }
+        }
+        loadedCounter.increment();
+        return (CachedStatistic<T>) join(refresh(key, loader, false)).statistic;
+    }
+
+    /**
+     * Marks all statistics of the configuration as stale, e.g. because a new game result was saved.
+     *
+     * @param configurationId the id of the configuration
+     */
+    public void markStale(final UUID configurationId) {
+        final long now = System.nanoTime();
+        for (final String statistic : statistics) {
+            // computed while the key is locked, so a refresh either stores its entry before or sees the mark
+            cache
+                .asMap()
+                .compute(
+                    new Key(configurationId, statistic),
+                    (key, entry) -> {
+                        if (entry != null) {
+                            entry.markStale(now);
+                        } else if (refreshes.containsKey(key)) {
+                            marksDuringLoad.merge(key, now, StatisticCache::latest);
+                        }
+                        return entry;
+                    }
+                );
+        }
+    }
+
+    /**
+     * Marks all statistics of the configuration as stale as soon as the current transaction is committed, so that the
+     * refresh sees the new game results. Without a transaction they are marked immediately.
+     *
+     * @param configurationId the id of the configuration
+     */
+    public void markStaleAfterCommit(final UUID configurationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markStale(configurationId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markStale(configurationId);
+                }
+            }
+        );
+    }
+
+    /**
+     * Removes all statistics of the configuration, e.g. because its questions changed. Refreshes that are still running
+     * are not stored and later requests do not wait for them.
+     * Within a transaction the statistics are removed once more when it completed, because refreshes that start before
+     * the commit still compute them from the former configuration.
+     *
+     * @param configurationId the id of the configuration
+     */
+    public void invalidate(final UUID configurationId) {
+        invalidateNow(configurationId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(final int status) {
+                        invalidateNow(configurationId);
+                    }
+                }
+            );
+        }
+    }
+
+    private void invalidateNow(final UUID configurationId) {
+        generations.merge(configurationId, 1L, Long::sum);
+        for (final String statistic : statistics) {
+            final Key key = new Key(configurationId, statistic);
+            refreshes.remove(key);
+            marksDuringLoad.remove(key);
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Starts a refresh of the entry, or returns the refresh that is already running.
+     *
+     * @param async whether the refresh runs in the background or in the calling thread
+     */
+    private <T> CompletableFuture<Entry> refresh(final Key key, final Supplier<T> loader, final boolean async) {
+        final CompletableFuture<Entry> refresh = new CompletableFuture<>();
+        final CompletableFuture<Entry> runningRefresh = refreshes.putIfAbsent(key, refresh);
+        if (runningRefresh != null) {
+            return runningRefresh;
+        }
+        final long generation = getGeneration(key.configurationId());
+        final Runnable task = () -> {
+            try {
+                final long startedAt = System.nanoTime();
+                final T value = loader.get();
+                refresh.complete(
+                    store(key, new Entry(new CachedStatistic<>(value, createETag(value)), startedAt), generation)
+                );
+            } catch (final RuntimeException | Error exception) {
+                if (async) {
+                    log.warn(
+                        "refreshing the statistic {} of configuration {} failed",
+                        key.statistic(),
+                        key.configurationId(),
+                        exception
+                    );
+                }
+                refresh.completeExceptionally(exception);
+            } finally {
+                refreshes.remove(key, refresh);
+            }
+        };
+        if (!async) {
+            task.run();
+            return refresh;
+        }
+        try {
+            executor.execute(task);
+        } catch (final RejectedExecutionException exception) {
+            // the stale entry is served again and refreshed by a later request
+            refreshes.remove(key, refresh);
+            refresh.completeExceptionally(exception);
+        }
+        return refresh;
+    }
+
+    /**
+     * Stores the refreshed entry. If the replaced entry (or the statistic without entry) was marked stale after the
+     * refresh started, the game result that caused it may be missing in the refreshed entry, so it stays stale. If the
+     * configuration was invalidated after the refresh started, the refreshed entry may be computed from the former
+     * configuration and is not stored.
+     *
+     * @param generation the generation of the configuration when the refresh started
+     * @return the refreshed entry
+     */
+    private Entry store(final Key key, final Entry refreshedEntry, final long generation) {
+        cache
+            .asMap()
+            .compute(
+                key,
+                (ignored, oldEntry) -> {
+                    final Long markDuringLoad = marksDuringLoad.remove(key);
+                    // checked while the key is locked, so an invalidation either drops the entry or removes it
+                    if (getGeneration(key.configurationId()) != generation) {
+                        return oldEntry;
+                    }
+                    if (oldEntry != null) {
+                        oldEntry.copyStaleMarkAfter(refreshedEntry);
+                    }
+                    if (markDuringLoad != null) {
+                        refreshedEntry.markStaleIfAfterStart(markDuringLoad);
+                    }
+                    return refreshedEntry;
+                }
+            );
+        return refreshedEntry;
+    }
+
+    /**
+     * @return the later of both times of System.nanoTime
+     */
+    private static long latest(final long time, final long otherTime) {
+        return otherTime - time > 0 ? otherTime : time;
+    }
+
+    private long getGeneration(final UUID configurationId) {
+        return generations.getOrDefault(configurationId, 0L);
+    }
+
+    private String createETag(final Object value) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(value));
+        } catch (final JsonProcessingException exception) {
+            throw new IllegalStateException("statistic could not be serialized", exception);
+        }
+    }
+
+    private static Entry join(final CompletableFuture<Entry> refresh) {
+        try {
+            return refresh.join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (exception.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw exception;
+        }
+    }
+
+    private static Counter createCounter(final String result, final MeterRegistry meterRegistry) {
+        return Counter
+            .builder("finitequiz.cache.statistics.requests")
+            .description("Number of statistics served from the statistics cache")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A computed statistic with the entity tag of its content.
+     */
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class CachedStatistic<T> {
+
+        T value;
+
+        /**
+         * Changes whenever the content of the statistic changes.
+         */
+        String eTag;
+    }
+
+    private record Key(UUID configurationId, String statistic) {}
+
+    private static class Entry {
+
+        private final CachedStatistic<?> statistic;
+
+        /**
+         * The time the computation of the statistic started, game results saved before are included.
+         */
+        private final long startedAt;
+
+        private boolean markedStale;
+
+        /**
+         * The time of the first mark, the entry is stale since then.
+         */
+        private long markedStaleAt;
+
+        /**
+         * The time of the latest mark, game results saved before may be missing in a refresh that started earlier.
+         */
+        private long lastMarkedStaleAt;
+
+        Entry(final CachedStatistic<?> statistic, final long startedAt) {
+            this.statistic = statistic;
+            this.startedAt = startedAt;
+        }
+
+        synchronized void markStale(final long now) {
+            if (!markedStale) {
+                markedStale = true;
+                markedStaleAt = now;
+                lastMarkedStaleAt = now;
+            } else {
+                lastMarkedStaleAt = latest(lastMarkedStaleAt, now);
+            }
+        }
+
+        void markStaleIfAfterStart(final long markedAt) {
+            if (markedAt - startedAt >= 0) {
+                markStale(markedAt);
+            }
+        }
+
+        /**
+         * @return the time since the entry is stale, negative if it is still fresh
+         */
+        synchronized long getStaleFor(final long now, final long refreshIntervalNanos) {
+            final long staleFor = now - (startedAt + refreshIntervalNanos);
+            return markedStale ? Math.max(staleFor, now - markedStaleAt) : staleFor;
+        }
+
+        synchronized void copyStaleMarkAfter(final Entry refreshedEntry) {
+            if (markedStale) {
+                refreshedEntry.markStaleIfAfterStart(lastMarkedStaleAt);
+            }
+        }
+    }
+}
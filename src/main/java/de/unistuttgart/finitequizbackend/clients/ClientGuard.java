@@ -0,0 +1,268 @@
+package de.unistuttgart.finitequizbackend.clients;
+
+import de.unistuttgart.finitequizbackend.errorhandling.CallNotPermittedException;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Guards the calls of one Feign client with a bulkhead and a circuit breaker.
+ *
+ * The bulkhead limits the number of concurrent calls, so that a slow backend cannot occupy more threads than that.
+ * The circuit breaker opens when the failure rate of the last calls exceeds the threshold; while it is open, calls
+ * fail immediately with a CallNotPermittedException. After the open duration a few trial calls are permitted
+ * (half-open), which close the circuit again if all of them succeed.
+ *
+ * Client errors of the backend (except timeouts and rate limiting) do not count as failures, because they do not
+ * indicate that the backend is unhealthy.
+ * The state is published as "finitequiz.client.circuit.state" (0 closed, 1 open, 2 half-open), the free bulkhead
+ * slots as "finitequiz.client.bulkhead.available" and the calls as "finitequiz.client.calls", tagged with the client.
+ */
+@Slf4j
+public class ClientGuard {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN,
+    }
+
+    private final String name;
+    private final Semaphore bulkhead;
+    private final Duration maxWait;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+
+    /**
+     * Outcomes of the last calls, true for failures. Used as a ring buffer.
+     */
+    private final boolean[] outcomes;
+
+    private int recordedCalls;
+    private int nextOutcome;
+    private int failedCalls;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final Counter successCounter;
+    private final Counter failureCounter;
+    private final Counter rejectedCounter;
+
+    public ClientGuard(
+        final String name,
+        final int maxConcurrentCalls,
+        final Duration maxWait,
+        final int failureRateThreshold,
+        final int slidingWindowSize,
+        final int minimumCalls,
+        final Duration openDuration,
+        final int halfOpenCalls,
+        final MeterRegistry meterRegistry
+    ) {
+        this.name = name;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxWait = maxWait;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+        this.openDuration = openDuration;
+        this.halfOpenCalls = halfOpenCalls;
+        this.outcomes = new boolean[slidingWindowSize];
+
+        Gauge
+            .builder("finitequiz.client.circuit.state", this, guard -> guard.getState().ordinal())
+            .description("State of the circuit breaker: 0 closed, 1 open, 2 half-open")
+            .tag("client", name)
+            .register(meterRegistry);
+        Gauge
+            .builder("finitequiz.client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+            .description("Number of further concurrent calls the bulkhead permits")
+            .tag("client", name)
+            .register(meterRegistry);
+        this.successCounter = createCounter("success", meterRegistry);
+        this.failureCounter = createCounter("failure", meterRegistry);
+        this.rejectedCounter = createCounter("rejected", meterRegistry);
+    }
+
+    /**
+     * Executes the call if the circuit breaker and the bulkhead permit it.
+     *
+     * @param call the call of the Feign client
+     * @return the result of the call
+     * @throws CallNotPermittedException when the circuit is open or the bulkhead is full
+     */
+    public <T> T call(final Supplier<T> call) {
+        if (!acquirePermission()) {
+            rejectedCounter.increment();
+            throw new CallNotPermittedException(String.format("circuit of %s is open", name));
+        }
+        try {
+            if (!bulkhead.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                releaseHalfOpenPermit();
+                rejectedCounter.increment();
+                throw new CallNotPermittedException(String.format("too many concurrent calls of %s", name));
+            }
+        } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            releaseHalfOpenPermit();
+            throw new CallNotPermittedException(String.format("interrupted while waiting for %s", name));
+        }
+        try {
+            final T result = call.get();
+            onResult(false);
+            return result;
+        } catch (final RuntimeException exception) {
+            onResult(isBackendFailure(exception));
+            throw exception;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Executes the call if the circuit breaker and the bulkhead permit it.
+     *
+     * @param call the call of the Feign client
+     * @throws CallNotPermittedException when the circuit is open or the bulkhead is full
+     */
+    public void run(final Runnable call) {
+        call(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return false if calls currently fail immediately, because the circuit is open
+     */
+    public synchronized boolean isCallPermitted() {
+        return getState() != State.OPEN;
+    }
+
+    /**
+     * @return the current state of the circuit breaker
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDuration.toNanos()) {
+            transitionTo(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    private synchronized boolean acquirePermission() {
+        final State currentState = getState();
+        if (currentState == State.CLOSED) {
+            return true;
+        }
+        if (currentState == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void releaseHalfOpenPermit() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits++;
+        }
+    }
+
+    private synchronized void onResult(final boolean failure) {
+        if (failure) {
+            failureCounter.increment();
+        } else {
+            successCounter.increment();
+        }
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failure) {
+                    transitionTo(State.OPEN);
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                recordOutcome(failure);
+                if (recordedCalls >= minimumCalls && failedCalls * 100 >= failureRateThreshold * recordedCalls) {
+                    transitionTo(State.OPEN);
+                }
+            }
+            default -> {
+                // a call that was permitted before the circuit opened
+            }
+        }
+    }
+
+    private void recordOutcome(final boolean failure) {
+        if (recordedCalls == outcomes.length) {
+            if (outcomes[nextOutcome]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextOutcome] = failure;
+        if (failure) {
+            failedCalls++;
+        }
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+    }
+
+    private void transitionTo(final State newState) {
+        if (state != newState) {
+            log.info("circuit of {} changed from {} to {}", name, state, newState);
+        }
+        state = newState;
+        switch (newState) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                recordedCalls = 0;
+                nextOutcome = 0;
+                failedCalls = 0;
+            }
+        }
+    }
+
+    /**
+     * Client errors (except timeouts and rate limiting) are answers of a healthy backend, which would reject the same
+     * request again.
+     *
+     * @param exception the exception of a call
+     * @return true if the exception indicates that the backend is slow or not available
+     */
+    public static boolean isBackendFailure(final RuntimeException exception) {
+        if (!(exception instanceof FeignException feignException)) {
+            return true;
+        }
+        final int status = feignException.status();
+        return (
+            status < 400 ||
+            status >= 500 ||
+            status == HttpStatus.REQUEST_TIMEOUT.value() ||
+            status == HttpStatus.TOO_MANY_REQUESTS.value()
+        );
+    }
+
+    private Counter createCounter(final String result, final MeterRegistry meterRegistry) {
+        return Counter
+            .builder("finitequiz.client.calls")
+            .description("Number of calls of a Feign client")
+            .tag("client", name)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,63 @@
+package de.unistuttgart.finitequizbackend.clients;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates one ClientGuard per Feign client, so that a slow or failing endpoint of the overworld-backend only affects
+ * the calls of its own client.
+ */
+@Configuration
+public class ClientGuardConfiguration {
+
+    @Bean
+    public ClientGuard overworldClientGuard(
+        @Value("${finitequiz.clients.overworld.max-concurrent-calls:16}") final int maxConcurrentCalls,
+        @Value("${finitequiz.clients.overworld.max-wait:0ms}") final Duration maxWait,
+        @Value("${finitequiz.clients.overworld.failure-rate-threshold:50}") final int failureRateThreshold,
+        @Value("${finitequiz.clients.overworld.sliding-window-size:20}") final int slidingWindowSize,
+        @Value("${finitequiz.clients.overworld.minimum-calls:10}") final int minimumCalls,
+        @Value("${finitequiz.clients.overworld.open-duration:30s}") final Duration openDuration,
+        @Value("${finitequiz.clients.overworld.half-open-calls:3}") final int halfOpenCalls,
+        final MeterRegistry meterRegistry
+    ) {
+        return new ClientGuard(
+            "overworldClient",
+            maxConcurrentCalls,
+            maxWait,
+            failureRateThreshold,
+            slidingWindowSize,
+            minimumCalls,
+            openDuration,
+            halfOpenCalls,
+            meterRegistry
+        );
+    }
+
+    @Bean
+    public ClientGuard resultClientGuard(
+        @Value("${finitequiz.clients.results.max-concurrent-calls:4}") final int maxConcurrentCalls,
+        @Value("${finitequiz.clients.results.max-wait:1s}") final Duration maxWait,
+        @Value("${finitequiz.clients.results.failure-rate-threshold:50}") final int failureRateThreshold,
+        @Value("${finitequiz.clients.results.sliding-window-size:20}") final int slidingWindowSize,
+        @Value("${finitequiz.clients.results.minimum-calls:5}") final int minimumCalls,
+        @Value("${finitequiz.clients.results.open-duration:30s}") final Duration openDuration,
+        @Value("${finitequiz.clients.results.half-open-calls:1}") final int halfOpenCalls,
+        final MeterRegistry meterRegistry
+    ) {
+        return new ClientGuard(
+            "resultClient",
+            maxConcurrentCalls,
+            maxWait,
+            failureRateThreshold,
+            slidingWindowSize,
+            minimumCalls,
+            openDuration,
+            halfOpenCalls,
+            meterRegistry
+        );
+    }
+}
@@ -0,0 +1,122 @@
+package de.unistuttgart.finitequizbackend.clients;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+/**
+ * Executes the requests of the Feign clients with a pooled Apache HttpClient, so that connections to the
+ * overworld-backend are kept alive and reused instead of being opened for every call.
+ *
+ * The connect and read timeouts of the Feign client are applied to each request. Request bodies are gzip compressed
+ * if compression is enabled and the body is at least compressionMinSize bytes long.
+ */
+public class PooledFeignClient implements Client {
+
+    private final HttpClient httpClient;
+    private final int connectionRequestTimeoutMillis;
+    private final boolean compressRequests;
+    private final int compressionMinSize;
+
+    public PooledFeignClient(
+        final HttpClient httpClient,
+        final int connectionRequestTimeoutMillis,
+        final boolean compressRequests,
+        final int compressionMinSize
+    ) {
+        this.httpClient = httpClient;
+        this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+        this.compressRequests = compressRequests;
+        this.compressionMinSize = compressionMinSize;
+    }
+
+    @Override
+    public Response execute(final Request request, final Request.Options options) throws IOException {
+        final RequestBuilder requestBuilder = RequestBuilder
+            .create(request.httpMethod().name())
+            .setUri(request.url())
+            .setConfig(
+                RequestConfig
+                    .custom()
+                    .setConnectTimeout(options.connectTimeoutMillis())
+                    .setSocketTimeout(options.readTimeoutMillis())
+                    .setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+                    .setRedirectsEnabled(options.isFollowRedirects())
+                    .build()
+            );
+        String contentType = null;
+        for (final Map.Entry<String, Collection<String>> header : request.headers().entrySet()) {
+            // the content length is set by the entity
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+                continue;
+            }
+            if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                contentType = header.getValue().iterator().next();
+                continue;
+            }
+            for (final String value : header.getValue()) {
+                requestBuilder.addHeader(header.getKey(), value);
+            }
+        }
+        if (request.body() != null) {
+            byte[] body = request.body();
+            if (compressRequests && body.length >= compressionMinSize) {
+                body = gzip(body);
+                requestBuilder.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            final ByteArrayEntity entity = new ByteArrayEntity(body);
+            if (contentType != null) {
+                entity.setContentType(ContentType.parse(contentType).toString());
+            }
+            requestBuilder.setEntity(entity);
+        }
+        return toFeignResponse(httpClient.execute(requestBuilder.build()), request);
+    }
+
+    /**
+     * The connection is returned to the pool when Feign closes the body of the response.
+     */
+    private static Response toFeignResponse(final HttpResponse httpResponse, final Request request)
+        throws IOException {
+        final Map<String, Collection<String>> headers = new LinkedHashMap<>();
+        for (final Header header : httpResponse.getAllHeaders()) {
+            headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+        }
+        final Response.Builder response = Response
+            .builder()
+            .status(httpResponse.getStatusLine().getStatusCode())
+            .reason(httpResponse.getStatusLine().getReasonPhrase())
+            .headers(headers)
+            .request(request);
+        final HttpEntity entity = httpResponse.getEntity();
+        if (entity != null) {
+            final long length = entity.getContentLength();
+            response.body(entity.getContent(), length >= 0 && length <= Integer.MAX_VALUE ? (int) length : null);
+        }
+        return response.build();
+    }
+
+    private static byte[] gzip(final byte[] body) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
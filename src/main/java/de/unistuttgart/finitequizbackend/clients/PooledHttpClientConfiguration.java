@@ -0,0 +1,116 @@
+package de.unistuttgart.finitequizbackend.clients;
+
+import feign.Client;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the default Feign transport, which opens a new HttpURLConnection per call, with a pooled Apache HttpClient
+ * that keeps connections to the overworld-backend alive.
+ *
+ * The pool utilization is published as "finitequiz.http.pool.connections" (tagged with leased, available, pending and
+ * max), the time to acquire a connection as "finitequiz.http.pool.acquire".
+ * The pooled transport is used unless finitequiz.http.pooled is set to false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "finitequiz.http.pooled", havingValue = "true", matchIfMissing = true)
+public class PooledHttpClientConfiguration {
+
+    @Bean
+    public TimedConnectionManager feignConnectionManager(
+        @Value("${finitequiz.http.max-connections:200}") final int maxConnections,
+        @Value("${finitequiz.http.max-connections-per-route:50}") final int maxConnectionsPerRoute,
+        @Value("${finitequiz.http.time-to-live:10m}") final Duration timeToLive,
+        @Value("${finitequiz.http.validate-after-inactivity:2s}") final Duration validateAfterInactivity,
+        final MeterRegistry meterRegistry
+    ) {
+        final Timer acquireTimer = Timer
+            .builder("finitequiz.http.pool.acquire")
+            .description("Time to acquire a connection from the pool")
+            .register(meterRegistry);
+        final TimedConnectionManager connectionManager = new TimedConnectionManager(
+            timeToLive.toMillis(),
+            TimeUnit.MILLISECONDS,
+            acquireTimer
+        );
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity((int) validateAfterInactivity.toMillis());
+
+        registerPoolGauge("leased", connectionManager, PoolStats::getLeased, meterRegistry);
+        registerPoolGauge("available", connectionManager, PoolStats::getAvailable, meterRegistry);
+        registerPoolGauge("pending", connectionManager, PoolStats::getPending, meterRegistry);
+        registerPoolGauge("max", connectionManager, PoolStats::getMax, meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient feignHttpClient(
+        final TimedConnectionManager feignConnectionManager,
+        @Value("${finitequiz.http.keep-alive:30s}") final Duration keepAlive,
+        @Value("${finitequiz.http.idle-timeout:60s}") final Duration idleTimeout
+    ) {
+        return HttpClients
+            .custom()
+            .setConnectionManager(feignConnectionManager)
+            .setKeepAliveStrategy((response, context) -> {
+                // use the keep-alive of the server if it sent a shorter one
+                final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(
+                    response,
+                    context
+                );
+                return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive.toMillis()) : keepAlive.toMillis();
+            })
+            .evictExpiredConnections()
+            .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+            // the access token of the user is sent with each request, cookies must not be shared between requests
+            .disableCookieManagement()
+            // failed submissions are retried by the outbox
+            .disableAutomaticRetries()
+            .build();
+    }
+
+    @Bean
+    public Client feignClient(
+        final CloseableHttpClient feignHttpClient,
+        @Value("${finitequiz.http.connection-request-timeout:1s}") final Duration connectionRequestTimeout,
+        @Value("${finitequiz.http.compression.enabled:false}") final boolean compressRequests,
+        @Value("${finitequiz.http.compression.min-size:2048}") final int compressionMinSize
+    ) {
+        return new PooledFeignClient(
+            feignHttpClient,
+            (int) connectionRequestTimeout.toMillis(),
+            compressRequests,
+            compressionMinSize
+        );
+    }
+
+    private static void registerPoolGauge(
+        final String state,
+        final TimedConnectionManager connectionManager,
+        final ToDoubleFunction<PoolStats> value,
+        final MeterRegistry meterRegistry
+    ) {
+        Gauge
+            .builder(
+                "finitequiz.http.pool.connections",
+                connectionManager,
+                manager -> value.applyAsDouble(manager.getTotalStats())
+            )
+            .description("Connections of the pool of the Feign clients")
+            .tag("state", state)
+            .register(meterRegistry);
+    }
+}
@@ -1,26 +1,48 @@
 package de.unistuttgart.finitequizbackend.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.finitequizbackend.Constants;
+import de.unistuttgart.finitequizbackend.cache.ConfigurationPayloadCache;
+import de.unistuttgart.finitequizbackend.cache.ConfigurationPayloadCache.SerializedConfiguration;
+import de.unistuttgart.finitequizbackend.data.Configuration;
 import de.unistuttgart.finitequizbackend.data.ConfigurationDTO;
+import de.unistuttgart.finitequizbackend.data.ConfigurationPatchDTO;
+import de.unistuttgart.finitequizbackend.data.ConfigurationSummaryPageDTO;
 import de.unistuttgart.finitequizbackend.data.ImageDTO;
 import de.unistuttgart.finitequizbackend.data.QuestionDTO;
 import de.unistuttgart.finitequizbackend.data.mapper.ConfigurationMapper;
 import de.unistuttgart.finitequizbackend.data.mapper.QuestionMapper;
 import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
 import de.unistuttgart.finitequizbackend.service.ConfigService;
+import de.unistuttgart.finitequizbackend.service.VolumeLevelService;
 import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
-
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.File;
 
@@ -35,6 +57,9 @@ import java.io.File;
 public class ConfigController {
 
     public static final List<String> LECTURER = List.of("lecturer");
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    static final String GZIP_ETAG_SUFFIX = "-gzip";
+
     @Autowired
     ConfigurationRepository configurationRepository;
 
@@ -47,6 +72,15 @@ public class ConfigController {
     @Autowired
     ConfigurationMapper configurationMapper;
 
+    @Autowired
+    ConfigurationPayloadCache configurationPayloadCache;
+
+    @Autowired
+    VolumeLevelService volumeLevelService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
     @Autowired
     private JWTValidatorService jwtValidatorService;
 
@@ -57,26 +91,86 @@ public class ConfigController {
         return configurationMapper.configurationsToConfigurationDTOs(configurationRepository.findAll());
     }
 
+    @GetMapping("/summaries")
+    public ConfigurationSummaryPageDTO getConfigurationSummaries(
+        @CookieValue("access_token") final String accessToken,
+        @RequestParam(value = "after", required = false) final UUID after,
+        @RequestParam(value = "limit", defaultValue = "50") final int limit
+    ) {
+        jwtValidatorService.validateTokenOrThrow(accessToken);
+        log.debug("get configuration summaries after {} with limit {}", after, limit);
+        return configService.getConfigurationSummaries(after, limit);
+    }
+
+    @Operation(summary = "Get a configuration")
+    @ApiResponse(
+        responseCode = "200",
+        content = @Content(
+            mediaType = MediaType.APPLICATION_JSON_VALUE,
+            schema = @Schema(implementation = ConfigurationDTO.class)
+        )
+    )
     @GetMapping("/{id}")
-    public ConfigurationDTO getConfiguration(
+    public ResponseEntity<ConfigurationDTO> getConfiguration(
         @CookieValue("access_token") final String accessToken,
-        @PathVariable final UUID id
+        @PathVariable final UUID id,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) final String acceptEncoding,
+        final WebRequest request
     ) {
         jwtValidatorService.validateTokenOrThrow(accessToken);
         log.debug("get configuration {}", id);
-        return configurationMapper.configurationToConfigurationDTO(configService.getConfiguration(id));
+        final long version = configService.getConfigurationVersion(id);
+        // the compressed representation has its own entity tag, caches must not answer with the other representation
+        final boolean gzip = configurationPayloadCache.isGzipEnabled() && acceptsGzip(acceptEncoding);
+        if (request.checkNotModified(createETag(id, version) + (gzip ? GZIP_ETAG_SUFFIX : ""))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        final Configuration configuration = configService.getConfiguration(id, version);
+        if (!configurationPayloadCache.isEnabled()) {
+            return ResponseEntity
+                .ok()
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .body(configurationMapper.configurationToConfigurationDTO(configuration));
+        }
+        // write the cached JSON directly, without mapping and serializing the configuration again
+        final SerializedConfiguration payload = configurationPayloadCache.get(configuration);
+        final ResponseEntity.BodyBuilder response = ResponseEntity
+            .ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return serializedBody(response.header(HttpHeaders.CONTENT_ENCODING, "gzip"), payload.getGzip());
+        }
+        return serializedBody(response, payload.getJson());
     }
 
     @GetMapping("/{id}/volume")
     public ConfigurationDTO getAllConfiguration(
             @CookieValue("access_token") final String accessToken,
-            @PathVariable final UUID id
+            @PathVariable final UUID id,
+            final WebRequest request
     ) {
         jwtValidatorService.validateTokenOrThrow(accessToken);
         log.debug("get configuration {}", id);
-        return configurationMapper.configurationToConfigurationDTO(
-                configService.getAllConfigurations(id, accessToken)
-        );
+        // the volume level is retrieved from the overworld-backend while the version is read
+        final CompletableFuture<Integer> volumeLevelLookup = volumeLevelService.getVolumeLevel(accessToken);
+        final long version = configService.getConfigurationVersion(id);
+        final Integer volumeLevel;
+        try {
+            volumeLevel = volumeLevelLookup.join();
+        } catch (final CompletionException exception) {
+            if (exception.getCause() instanceof ResponseStatusException responseStatusException) {
+                throw responseStatusException;
+            }
+            throw exception;
+        }
+        if (request.checkNotModified(createETag(id, version) + "-" + volumeLevel)) {
+            return null;
+        }
+        final Configuration configuration = configService.getConfiguration(id, version);
+        final ConfigurationDTO configurationDTO = configurationMapper.configurationToConfigurationDTO(configuration);
+        configurationDTO.setVolumeLevel(volumeLevel);
+        return configurationDTO;
     }
 
     @PostMapping("")
@@ -103,6 +197,18 @@ public class ConfigController {
         return configService.updateConfiguration(id, configurationDTO);
     }
 
+    @PatchMapping("/{id}")
+    public ConfigurationPatchDTO patchConfiguration(
+        @CookieValue("access_token") final String accessToken,
+        @PathVariable final UUID id,
+        @RequestBody final ConfigurationPatchDTO patch
+    ) {
+        jwtValidatorService.validateTokenOrThrow(accessToken);
+        jwtValidatorService.hasRolesOrThrow(accessToken, LECTURER);
+        log.debug("patch configuration {} with {}", id, patch);
+        return configService.patchConfiguration(id, patch);
+    }
+
     @DeleteMapping("/{id}")
     public ConfigurationDTO deleteConfiguration(
         @CookieValue("access_token") final String accessToken,
@@ -127,6 +233,51 @@ public class ConfigController {
         return configService.addQuestionToConfiguration(id, questionDTO);
     }
 
+    @PostMapping(value = "/{id}/questions/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<QuestionDTO> addQuestionsToConfiguration(
+        @CookieValue("access_token") final String accessToken,
+        @PathVariable final UUID id,
+        @RequestBody final List<QuestionDTO> questionDTOs
+    ) {
+        jwtValidatorService.validateTokenOrThrow(accessToken);
+        jwtValidatorService.hasRolesOrThrow(accessToken, LECTURER);
+        log.debug("add {} questions to configuration {}", questionDTOs.size(), id);
+        return configService.addQuestionsToConfiguration(id, questionDTOs);
+    }
+
+    @PostMapping(value = "/{id}/questions/bulk", consumes = NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<QuestionDTO> addQuestionsToConfigurationFromStream(
+        @CookieValue("access_token") final String accessToken,
+        @PathVariable final UUID id,
+        final InputStream body
+    ) {
+        jwtValidatorService.validateTokenOrThrow(accessToken);
+        jwtValidatorService.hasRolesOrThrow(accessToken, LECTURER);
+        final List<QuestionDTO> questionDTOs = new ArrayList<>();
+        try (MappingIterator<QuestionDTO> iterator = objectMapper.readerFor(QuestionDTO.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                if (questionDTOs.size() == Constants.MAX_BULK_QUESTIONS) {
+                    throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        String.format("At most %s questions can be added at once.", Constants.MAX_BULK_QUESTIONS)
+                    );
+                }
+                questionDTOs.add(iterator.nextValue());
+            }
+        } catch (final JsonProcessingException exception) {
+            throw new ResponseStatusException(
+                HttpStatus.BAD_REQUEST,
+                String.format("questions[%s] could not be read: %s", questionDTOs.size(), exception.getOriginalMessage())
+            );
+        } catch (final IOException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "questions could not be read");
+        }
+        log.debug("add {} questions to configuration {}", questionDTOs.size(), id);
+        return configService.addQuestionsToConfiguration(id, questionDTOs);
+    }
+
     @DeleteMapping("/{id}/questions/{questionId}")
     public QuestionDTO removeQuestionFromConfiguration(
         @CookieValue("access_token") final String accessToken,
@@ -155,11 +306,18 @@ public class ConfigController {
     @GetMapping("/{id}/questions")
     public Set<QuestionDTO> getQuestions(
         @CookieValue("access_token") final String accessToken,
-        @PathVariable final UUID id
+        @PathVariable final UUID id,
+        final WebRequest request
     ) {
         jwtValidatorService.validateTokenOrThrow(accessToken);
         log.debug("get configuration {}", id);
-        return configurationMapper.configurationToConfigurationDTO(configService.getConfiguration(id)).getQuestions();
+        final long version = configService.getConfigurationVersion(id);
+        if (request.checkNotModified(createETag(id, version))) {
+            return null;
+        }
+        return configurationMapper
+            .configurationToConfigurationDTO(configService.getConfiguration(id, version))
+            .getQuestions();
     }
 
     @PostMapping("/{id}/clone")
@@ -170,6 +328,19 @@ public class ConfigController {
         return configService.cloneConfiguration(id);
     }
 
+    @PostMapping("/{id}/clones")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<UUID> cloneConfigurations(
+        @CookieValue("access_token") final String accessToken,
+        @PathVariable final UUID id,
+        @RequestParam final int count
+    ) {
+        jwtValidatorService.validateTokenOrThrow(accessToken);
+        jwtValidatorService.hasRolesOrThrow(accessToken, LECTURER);
+        log.debug("clone configuration {} {} times", id, count);
+        return configService.cloneConfiguration(id, count);
+    }
+
     @PostMapping("/images")
     @ResponseStatus(HttpStatus.CREATED)
     public ImageDTO addImage(
@@ -207,5 +378,50 @@ public class ConfigController {
         return configService.getImagesByConfigUUID(uuid);
     }
 
+    /**
+     * Creates the entity tag of a configuration, which changes with every change of the configuration.
+     *
+     * @param id      the id of the configuration
+     * @param version the version of the configuration
+     * @return the entity tag
+     */
+    private static String createETag(final UUID id, final long version) {
+        return id + "-" + version;
+    }
+
+    /**
+     * The serialized ConfigurationDTO is written as it is by the byte array message converter.
+     *
+     * @param response the response to complete
+     * @param body     the serialized ConfigurationDTO
+     * @return the response with the serialized body
+     */
+    @SuppressWarnings("unchecked")
+    private static ResponseEntity<ConfigurationDTO> serializedBody(
+        final ResponseEntity.BodyBuilder response,
+        final byte[] body
+    ) {
+        return (ResponseEntity<ConfigurationDTO>) (ResponseEntity<?>) response.body(body);
+    }
+
+    /**
+     * Checks if the client accepts gzip compressed responses.
+     *
+     * @param acceptEncoding the value of the Accept-Encoding header
+     * @return true if the client accepts gzip
+     */
+    private static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (final String encoding : acceptEncoding.split(",")) {
+            final String[] parts = encoding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
 
 }
@@ -1,5 +1,8 @@
 package de.unistuttgart.finitequizbackend.controller;
 
+import de.unistuttgart.finitequizbackend.cache.GameResultIdempotencyIndex;
+import de.unistuttgart.finitequizbackend.Constants;
+import de.unistuttgart.finitequizbackend.data.GameResult;
 import de.unistuttgart.finitequizbackend.data.GameResultDTO;
 import de.unistuttgart.finitequizbackend.service.GameResultService;
 import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
@@ -7,9 +10,12 @@ import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * This controller handles the game-result-related REST-APIs
@@ -21,22 +27,73 @@ import org.springframework.web.bind.annotation.*;
 @Validated
 public class GameResultController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     GameResultService gameResultService;
 
     @Autowired
     private JWTValidatorService jwtValidatorService;
 
+    @Autowired
+    private GameResultIdempotencyIndex idempotencyIndex;
+
+    /**
+     * Saves a game result. Retried submissions with the same Idempotency-Key header (or, without the header, the same
+     * client-generated result id) are answered with the response to the first submission and not saved again.
+     */
     @PostMapping("")
     @ResponseStatus(HttpStatus.CREATED)
     public GameResultDTO saveGameResult(
         @CookieValue("access_token") final String accessToken,
+        @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) @Nullable final String idempotencyKeyHeader,
         @Valid @RequestBody final GameResultDTO gameResultDTO
     ) {
         jwtValidatorService.validateTokenOrThrow(accessToken);
         final String userId = jwtValidatorService.extractUserId(accessToken);
-        log.debug("save game result for userId {}: {}", userId, gameResultDTO);
-        gameResultService.saveGameResult(gameResultDTO, userId, accessToken);
+        final String idempotencyKey = getIdempotencyKey(idempotencyKeyHeader, gameResultDTO);
+        if (idempotencyKey == null) {
+            log.debug("save game result for userId {}: {}", userId, gameResultDTO);
+            gameResultService.saveGameResult(gameResultDTO, userId, accessToken, null);
+            return gameResultDTO;
+        }
+        final GameResultDTO previousResponse = idempotencyIndex.get(userId, idempotencyKey);
+        if (previousResponse != null) {
+            log.debug("game result of userId {} with idempotency key {} was already saved", userId, idempotencyKey);
+            return previousResponse;
+        }
+        log.debug("save game result for userId {} with idempotency key {}: {}", userId, idempotencyKey, gameResultDTO);
+        try {
+            // the service remembers the response as soon as the result is persisted
+            gameResultService.saveGameResult(gameResultDTO, userId, accessToken, idempotencyKey);
+        } catch (final DuplicateKeyException duplicateException) {
+            // the result was saved by another instance or before this instance was started
+            final GameResult savedResult = gameResultService.getGameResult(userId, idempotencyKey);
+            gameResultDTO.setScore(savedResult.getScore());
+            gameResultDTO.setRewards(savedResult.getRewards());
+            idempotencyIndex.put(userId, idempotencyKey, gameResultDTO);
+        }
         return gameResultDTO;
     }
+
+    @Nullable
+    private static String getIdempotencyKey(
+        @Nullable final String idempotencyKeyHeader,
+        final GameResultDTO gameResultDTO
+    ) {
+        if (idempotencyKeyHeader == null || idempotencyKeyHeader.isBlank()) {
+            return gameResultDTO.getId() != null ? gameResultDTO.getId().toString() : null;
+        }
+        if (idempotencyKeyHeader.length() > Constants.MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new ResponseStatusException(
+                HttpStatus.BAD_REQUEST,
+                String.format(
+                    "%s cannot be longer than %d characters",
+                    IDEMPOTENCY_KEY_HEADER,
+                    Constants.MAX_IDEMPOTENCY_KEY_LENGTH
+                )
+            );
+        }
+        return idempotencyKeyHeader;
+    }
 }
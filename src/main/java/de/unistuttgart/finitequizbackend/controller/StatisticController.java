@@ -1,18 +1,25 @@
 package de.unistuttgart.finitequizbackend.controller;
 
+import de.unistuttgart.finitequizbackend.cache.StatisticCache;
+import de.unistuttgart.finitequizbackend.cache.StatisticCache.CachedStatistic;
 import de.unistuttgart.finitequizbackend.data.statistic.ProblematicQuestion;
 import de.unistuttgart.finitequizbackend.data.statistic.TimeSpentDistribution;
 import de.unistuttgart.finitequizbackend.service.StatisticService;
 import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * This controller handles all game-configuration-related REST-APIs
@@ -25,31 +32,78 @@ import org.springframework.web.bind.annotation.*;
 @Validated
 public class StatisticController {
 
+    static final String PROBLEMATIC_QUESTIONS_STATISTIC = "problematic-questions";
+    static final String TIME_SPENT_STATISTIC = "time-spent";
+
     @Autowired
     private StatisticService statisticService;
 
     @Autowired
     private JWTValidatorService jwtValidatorService;
 
-    @Operation(summary = "Get problematic questions of a configuration")
+    @Autowired
+    private StatisticCache statisticCache;
+
+    @Value("${finitequiz.cache.statistics.client-max-age:0s}")
+    private Duration clientMaxAge;
+
+    @Operation(
+        summary = "Get problematic questions of a configuration",
+        description = "Counts all game results of the configuration. If game_result is partitioned, results in " +
+        "partitions that were detached after the retention period (finitequiz.partitions.retention-months) are not " +
+        "counted."
+    )
     @GetMapping("/{id}/problematic-questions")
-    public List<ProblematicQuestion> getProblematicQuestionsStatisticsOfMinigame(
+    public ResponseEntity<List<ProblematicQuestion>> getProblematicQuestionsStatisticsOfMinigame(
         @CookieValue("access_token") final String accessToken,
-        @PathVariable final UUID id
+        @PathVariable final UUID id,
+        final WebRequest request
     ) {
         jwtValidatorService.validateTokenOrThrow(accessToken);
         log.debug("get problematic questions statistic of configuration {}", id);
-        return statisticService.getProblematicQuestions(id);
+        final CachedStatistic<List<ProblematicQuestion>> problematicQuestions = statisticCache.get(
+            id,
+            PROBLEMATIC_QUESTIONS_STATISTIC,
+            () -> statisticService.getProblematicQuestions(id)
+        );
+        if (request.checkNotModified(problematicQuestions.getETag())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(createCacheControl()).body(problematicQuestions.getValue());
     }
 
-    @Operation(summary = "Get the time spent distribution of a configuration")
+    @Operation(
+        summary = "Get the time spent distribution of a configuration",
+        description = "Covers all game results of the configuration. If game_result is partitioned, results in " +
+        "partitions that were detached after the retention period (finitequiz.partitions.retention-months) are not " +
+        "covered."
+    )
     @GetMapping("/{id}/time-spent")
-    public List<TimeSpentDistribution> getTimeSpentStatistcOfMinigame(
+    public ResponseEntity<List<TimeSpentDistribution>> getTimeSpentStatistcOfMinigame(
         @CookieValue("access_token") final String accessToken,
-        @PathVariable final UUID id
+        @PathVariable final UUID id,
+        final WebRequest request
     ) {
         jwtValidatorService.validateTokenOrThrow(accessToken);
         log.debug("get time spent statistic of configuration {}", id);
-        return statisticService.getTimeSpentDistributions(id);
+        final CachedStatistic<List<TimeSpentDistribution>> timeSpentDistributions = statisticCache.get(
+            id,
+            TIME_SPENT_STATISTIC,
+            () -> statisticService.getTimeSpentDistributions(id)
+        );
+        if (request.checkNotModified(timeSpentDistributions.getETag())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(createCacheControl()).body(timeSpentDistributions.getValue());
+    }
+
+    /**
+     * Statistics are only served to logged in users, so shared caches must not store them. Browsers revalidate them
+     * with the entity tag after the configured max age.
+     *
+     * @return the cache control of statistics responses
+     */
+    private CacheControl createCacheControl() {
+        return CacheControl.maxAge(clientMaxAge).cachePrivate().mustRevalidate();
     }
 }
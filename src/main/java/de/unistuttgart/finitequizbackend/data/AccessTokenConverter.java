@@ -0,0 +1,86 @@
+package de.unistuttgart.finitequizbackend.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.persistence.AttributeConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encrypts the access tokens of outbox entries with AES-GCM, so that the database does not contain usable bearer
+ * tokens.
+ *
+ * The key is configured with finitequiz.outbox.token-key (base64 encoded, 16, 24 or 32 bytes) and must be the same on
+ * all instances and across restarts, so the application does not start without it. Tokens that were encrypted with
+ * another key are read as null. Tokens saved unencrypted by earlier versions are read as they are.
+ */
+@Component
+@Slf4j
+public class AccessTokenConverter implements AttributeConverter<String, String> {
+
+    static final String PREFIX = "aes-gcm:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private final SecretKey key;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public AccessTokenConverter(@Value("${finitequiz.outbox.token-key:}") final String encodedKey) {
+        if (encodedKey == null || encodedKey.isBlank()) {
+            throw new IllegalStateException(
+                "finitequiz.outbox.token-key is not set, the access tokens in the outbox could not be decrypted after a restart"
+            );
+        }
+        final byte[] keyBytes = Base64.getDecoder().decode(encodedKey.trim());
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalArgumentException("finitequiz.outbox.token-key must be 16, 24 or 32 bytes long");
+        }
+        this.key = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    @Override
+    public String convertToDatabaseColumn(final String accessToken) {
+        if (accessToken == null) {
+            return null;
+        }
+        final byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        try {
+            final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            final byte[] encryptedToken = cipher.doFinal(accessToken.getBytes(StandardCharsets.UTF_8));
+            final byte[] column = ByteBuffer.allocate(iv.length + encryptedToken.length).put(iv).put(encryptedToken).array();
+            return PREFIX + Base64.getEncoder().encodeToString(column);
+        } catch (final GeneralSecurityException exception) {
+            throw new IllegalStateException("access token could not be encrypted", exception);
+        }
+    }
+
+    /**
+     * @return the decrypted access token, null if it was encrypted with another key
+     */
+    @Override
+    public String convertToEntityAttribute(final String column) {
+        if (column == null || !column.startsWith(PREFIX)) {
+            return column;
+        }
+        try {
+            final byte[] bytes = Base64.getDecoder().decode(column.substring(PREFIX.length()));
+            final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, bytes, 0, IV_LENGTH));
+            return new String(cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH), StandardCharsets.UTF_8);
+        } catch (final GeneralSecurityException | IllegalArgumentException exception) {
+            log.warn("access token could not be decrypted: {}", exception.toString());
+            return null;
+        }
+    }
+}
@@ -1,14 +1,15 @@
 package de.unistuttgart.finitequizbackend.data;
 
+import java.util.Date;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import javax.persistence.*;
 import javax.validation.Valid;
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.validation.annotation.Validated;
 
 /**
@@ -41,6 +42,17 @@ public class Configuration {
      */
     Integer volumeLevel;
 
+    /**
+     * The version of the configuration, increased on every change of the configuration or its questions.
+     */
+    @ColumnDefault("0")
+    long version;
+
+    /**
+     * The point in time of the last change of the configuration or its questions.
+     */
+    Date lastModified;
+
     public Configuration(final Set<Question> questions) {
         this.questions = questions;
     }
@@ -61,10 +73,11 @@ public class Configuration {
         this.questions.remove(question);
     }
 
-    @Override
-    public Configuration clone() {
-        return new Configuration(
-            this.questions.stream().map(Question::clone).collect(Collectors.toSet())
-        );
+    /**
+     * Marks the configuration as changed by increasing its version.
+     */
+    public void markModified() {
+        this.version++;
+        this.lastModified = new Date();
     }
 }
@@ -0,0 +1,40 @@
+package de.unistuttgart.finitequizbackend.data;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.lang.Nullable;
+
+/**
+ * The ConfigurationPatchDTO.class contains the changes of the questions of a configuration.
+ * Questions that are not mentioned stay unchanged.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ConfigurationPatchDTO {
+
+    /**
+     * The questions to add, their ids are assigned when they are added.
+     */
+    @Nullable
+    List<QuestionDTO> added;
+
+    /**
+     * The ids of the questions to remove.
+     */
+    @Nullable
+    Set<UUID> removed;
+
+    /**
+     * The changed questions, identified by their id.
+     */
+    @Nullable
+    List<QuestionDTO> modified;
+}
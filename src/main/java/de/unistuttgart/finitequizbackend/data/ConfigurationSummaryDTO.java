@@ -0,0 +1,34 @@
+package de.unistuttgart.finitequizbackend.data;
+
+import java.util.Date;
+import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The ConfigurationSummaryDTO.class contains the overview of a configuration without its questions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ConfigurationSummaryDTO {
+
+    /**
+     * A unique identifier for the configuration.
+     */
+    UUID id;
+
+    /**
+     * The number of questions of the configuration.
+     */
+    int questionCount;
+
+    /**
+     * The point in time of the last change of the configuration or its questions.
+     */
+    Date lastModified;
+}
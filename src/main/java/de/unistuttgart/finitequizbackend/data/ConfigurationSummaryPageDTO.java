@@ -0,0 +1,31 @@
+package de.unistuttgart.finitequizbackend.data;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.lang.Nullable;
+
+/**
+ * The ConfigurationSummaryPageDTO.class contains one page of configuration summaries, ordered by id.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ConfigurationSummaryPageDTO {
+
+    /**
+     * The configuration summaries of this page.
+     */
+    List<ConfigurationSummaryDTO> configurations;
+
+    /**
+     * The cursor to request the next page with, null if this is the last page.
+     */
+    @Nullable
+    UUID nextCursor;
+}
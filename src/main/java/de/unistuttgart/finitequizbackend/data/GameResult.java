@@ -2,6 +2,7 @@ package de.unistuttgart.finitequizbackend.data;
 
 import de.unistuttgart.finitequizbackend.Constants;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
@@ -15,6 +16,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 
 /**
@@ -55,18 +57,19 @@ public class GameResult {
     private long score;
 
     /**
-     * A list of correctly answered questions and the selected answer.
+     * The answered questions with the selected answer, the correctly answered questions first.
+     * Stored as one row per round in game_result_round instead of separate entities and join tables.
      */
-    @ManyToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @Valid
-    private List<RoundResult> correctAnsweredQuestions;
-
-    /**
-     * A list of incorrectly answered questions and the selected answer.
-     */
-    @ManyToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(
+        name = "game_result_round",
+        joinColumns = @JoinColumn(name = "game_result_id"),
+        // game_result is partitioned, a foreign key would have to contain played_time
+        foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT)
+    )
+    @OrderColumn(name = "round_index")
     @Valid
-    private List<RoundResult> wrongAnsweredQuestions;
+    private List<RoundResult> roundResults = new ArrayList<>();
 
     /**
      * The ID of the configuration that was used for the game.
@@ -93,6 +96,12 @@ public class GameResult {
     @Max(value = Constants.MAX_REWARDS, message = "Rewards cannot be higher than " + Constants.MAX_REWARDS)
     private int rewards;
 
+    /**
+     * The key the client sent with the result, used to detect retried submissions. Null if the client sent none.
+     * The key is unique per player, which is enforced by game_result_idempotency_key.
+     */
+    @Nullable
+    private String idempotencyKey;
 
     public GameResult(
         final int questionCount,
@@ -108,9 +117,50 @@ public class GameResult {
         this.score = score;
         this.timeSpent = timeSpent;
         this.rewards = rewards;
-        this.correctAnsweredQuestions = correctAnsweredQuestions;
-        this.wrongAnsweredQuestions = wrongAnsweredQuestions;
         this.configurationAsUUID = configurationAsUUID;
         this.playerId = playerId;
+        setCorrectAnsweredQuestions(correctAnsweredQuestions);
+        setWrongAnsweredQuestions(wrongAnsweredQuestions);
+    }
+
+    /**
+     * @return a list of correctly answered questions and the selected answer
+     */
+    public List<RoundResult> getCorrectAnsweredQuestions() {
+        return roundResults.stream().filter(RoundResult::isCorrect).toList();
+    }
+
+    /**
+     * @return a list of incorrectly answered questions and the selected answer
+     */
+    public List<RoundResult> getWrongAnsweredQuestions() {
+        return roundResults.stream().filter(roundResult -> !roundResult.isCorrect()).toList();
+    }
+
+    /**
+     * Replaces the correctly answered questions.
+     *
+     * @param correctAnsweredQuestions the correctly answered questions and the selected answer
+     */
+    public void setCorrectAnsweredQuestions(final List<RoundResult> correctAnsweredQuestions) {
+        replaceRoundResults(correctAnsweredQuestions, true);
+    }
+
+    /**
+     * Replaces the incorrectly answered questions.
+     *
+     * @param wrongAnsweredQuestions the incorrectly answered questions and the selected answer
+     */
+    public void setWrongAnsweredQuestions(final List<RoundResult> wrongAnsweredQuestions) {
+        replaceRoundResults(wrongAnsweredQuestions, false);
+    }
+
+    private void replaceRoundResults(final List<RoundResult> newRoundResults, final boolean correct) {
+        final List<RoundResult> replacedRoundResults = newRoundResults != null ? newRoundResults : List.of();
+        replacedRoundResults.forEach(roundResult -> roundResult.setCorrect(correct));
+        final List<RoundResult> keptRoundResults = correct ? getWrongAnsweredQuestions() : getCorrectAnsweredQuestions();
+        roundResults.clear();
+        roundResults.addAll(correct ? replacedRoundResults : keptRoundResults);
+        roundResults.addAll(correct ? keptRoundResults : replacedRoundResults);
     }
 }
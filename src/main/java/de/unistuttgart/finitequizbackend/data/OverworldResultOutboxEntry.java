@@ -0,0 +1,120 @@
+package de.unistuttgart.finitequizbackend.data;
+
+import java.util.Date;
+import java.util.UUID;
+import javax.persistence.*;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.lang.Nullable;
+
+/**
+ * The OverworldResultOutboxEntry.class contains a result that still has to be submitted to the overworld-backend.
+ * It is saved in the same transaction as the game result and delivered in the background.
+ * Delivered entries are deleted, entries that cannot be delivered are kept with the status DEAD.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "status, nextAttemptAt"))
+@Data
+@NoArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OverworldResultOutboxEntry {
+
+    /**
+     * A unique identifier for the outbox entry.
+     */
+    @Id
+    @GeneratedValue(generator = "uuid")
+    UUID id;
+
+    /**
+     * The ID of the configuration that was used for the game.
+     */
+    UUID configurationId;
+
+    /**
+     * The score achieved in the game.
+     */
+    long score;
+
+    /**
+     * The ID of the user that played the game.
+     */
+    String userId;
+
+    /**
+     * The reward-coins that the player achieved in the game.
+     */
+    int rewards;
+
+    /**
+     * The access token of the user, required by the overworld-backend. Stored encrypted and removed when the entry is
+     * dead-lettered. Null if it was encrypted with the key of another instance.
+     * The token usually expires after a few minutes, so later retries are rejected by the overworld-backend and the
+     * entry is dead-lettered.
+     */
+    @Nullable
+    @Column(length = 8192)
+    @Convert(converter = AccessTokenConverter.class)
+    String accessToken;
+
+    @Enumerated(EnumType.STRING)
+    Status status;
+
+    /**
+     * The number of failed delivery attempts.
+     */
+    int attempts;
+
+    /**
+     * The point in time the game result was saved.
+     */
+    Date createdAt;
+
+    /**
+     * The earliest point in time of the next delivery attempt.
+     */
+    Date nextAttemptAt;
+
+    /**
+     * The error of the last failed delivery attempt.
+     */
+    @Nullable
+    @Column(length = 1024)
+    String lastError;
+
+    public OverworldResultOutboxEntry(
+        final OverworldResultDTO resultDTO,
+        final String accessToken,
+        final Date createdAt
+    ) {
+        this.configurationId = resultDTO.getConfigurationId();
+        this.score = resultDTO.getScore();
+        this.userId = resultDTO.getUserId();
+        this.rewards = resultDTO.getRewards();
+        this.accessToken = accessToken;
+        this.status = Status.PENDING;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    /**
+     * @return the result that is submitted to the overworld-backend
+     */
+    public OverworldResultDTO toOverworldResultDTO() {
+        return new OverworldResultDTO(configurationId, score, userId, rewards);
+    }
+
+    public enum Status {
+        /**
+         * The entry waits for its (next) delivery attempt.
+         */
+        PENDING,
+
+        /**
+         * The entry could not be delivered and is not retried anymore.
+         */
+        DEAD,
+    }
+}
@@ -1,6 +1,5 @@
 package de.unistuttgart.finitequizbackend.data;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -12,6 +11,7 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.validation.annotation.Validated;
@@ -42,14 +42,18 @@ public class Question {
 
     /**
      * The correct answer.
+     * Both answer collections are excluded from equals and hashCode, because questions are hashed while a fetch join
+     * still loads them into the set of their configuration.
      */
     @ElementCollection
+    @EqualsAndHashCode.Exclude
     List<String> rightAnswer;
 
     /**
      * A list of wrong answers.
      */
     @ElementCollection
+    @EqualsAndHashCode.Exclude
     Set<WrongAnswer> wrongAnswers;
     String uuid;
 
@@ -59,9 +63,4 @@ public class Question {
         this.wrongAnswers = wrongAnswers;
         this.uuid = uuid;
     }
-
-    @Override
-    public Question clone() {
-        return new Question(this.text, this.rightAnswer, new HashSet<>(this.wrongAnswers), this.uuid);
-    }
 }
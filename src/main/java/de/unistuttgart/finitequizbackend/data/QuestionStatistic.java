@@ -0,0 +1,50 @@
+package de.unistuttgart.finitequizbackend.data;
+
+import java.io.Serializable;
+import java.util.UUID;
+import javax.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The QuestionStatistic.class counts how often a question of a configuration was answered correctly and wrongly.
+ * It is only updated with atomic upserts by the QuestionStatisticRepository, in the same transaction that saves the
+ * game results.
+ */
+@Entity
+@IdClass(QuestionStatistic.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class QuestionStatistic {
+
+    /**
+     * The ID of the configuration the question was played in.
+     */
+    @Id
+    UUID configurationId;
+
+    /**
+     * The ID of the question.
+     */
+    @Id
+    UUID questionId;
+
+    int attempts;
+    int correctAnswers;
+    int wrongAnswers;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Key implements Serializable {
+
+        UUID configurationId;
+        UUID questionId;
+    }
+}
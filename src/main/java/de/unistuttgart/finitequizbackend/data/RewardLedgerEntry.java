@@ -0,0 +1,50 @@
+package de.unistuttgart.finitequizbackend.data;
+
+import java.io.Serializable;
+import java.util.UUID;
+import javax.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The RewardLedgerEntry.class counts the rounds a player finished with a perfect score in one configuration.
+ * It is only updated with an atomic upsert by the RewardLedgerRepository.
+ */
+@Entity
+@IdClass(RewardLedgerEntry.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RewardLedgerEntry {
+
+    /**
+     * The ID of the player.
+     */
+    @Id
+    String playerId;
+
+    /**
+     * The ID of the configuration that was played.
+     */
+    @Id
+    UUID configurationId;
+
+    /**
+     * The number of rounds the player finished with a perfect score that were rewarded with the full rewards.
+     */
+    int perfectRounds;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Key implements Serializable {
+
+        String playerId;
+        UUID configurationId;
+    }
+}
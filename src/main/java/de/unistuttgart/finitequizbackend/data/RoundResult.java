@@ -1,9 +1,7 @@
 package de.unistuttgart.finitequizbackend.data;
 
-import java.util.UUID;
-import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
+import javax.persistence.Embeddable;
+import javax.persistence.FetchType;
 import javax.persistence.ManyToOne;
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
@@ -16,26 +14,20 @@ import org.springframework.validation.annotation.Validated;
 
 /**
  * The RoundResult.class contains the round result related information.
+ * Round results are stored as rows of the game_result_round table of their game result.
  */
-@Entity
+@Embeddable
 @Data
 @NoArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Validated
 public class RoundResult {
 
-    /**
-     * A unique identifier for the round result.
-     */
-    @Id
-    @GeneratedValue(generator = "uuid")
-    UUID id;
-
     /**
      * The question that was answered.
      */
     @NotNull(message = "question cannot be null")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @Valid
     Question question;
 
@@ -46,8 +38,19 @@ public class RoundResult {
     @NotBlank(message = "answer cannot be blank")
     String answer;
 
+    /**
+     * Whether the question was answered correctly.
+     */
+    boolean correct;
+
     public RoundResult(final Question question, final String answer) {
         this.question = question;
         this.answer = answer;
     }
+
+    public RoundResult(final Question question, final String answer, final boolean correct) {
+        this.question = question;
+        this.answer = answer;
+        this.correct = correct;
+    }
 }
@@ -0,0 +1,48 @@
+package de.unistuttgart.finitequizbackend.data;
+
+import java.io.Serializable;
+import java.util.UUID;
+import javax.persistence.*;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * The TimeSpentBucket.class counts the game results of a configuration whose time spent falls into one bucket of the
+ * TimeSpentHistogram. It is only updated with atomic upserts by the TimeSpentHistogramRepository, in the same
+ * transaction that saves the game results.
+ */
+@Entity
+@IdClass(TimeSpentBucket.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TimeSpentBucket {
+
+    /**
+     * The ID of the configuration that was played.
+     */
+    @Id
+    UUID configurationId;
+
+    /**
+     * The index of the bucket in the TimeSpentHistogram.
+     */
+    @Id
+    int bucket;
+
+    long count;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Key implements Serializable {
+
+        UUID configurationId;
+        int bucket;
+    }
+}
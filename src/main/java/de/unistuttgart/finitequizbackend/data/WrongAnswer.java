@@ -1,5 +1,6 @@
 package de.unistuttgart.finitequizbackend.data;
 
+import java.util.Objects;
 import java.util.UUID;
 import javax.persistence.Embeddable;
 import javax.validation.constraints.NotBlank;
@@ -38,4 +39,21 @@ public class WrongAnswer {
     public void setText(String text) {
         this.text = text;
     }
+
+    /**
+     * Hibernate compares the wrong answers of a question with its snapshot by equality when it flushes, so without
+     * equals every loaded question would delete and insert its wrong answers again.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (!(o instanceof WrongAnswer)) return false;
+        final WrongAnswer other = (WrongAnswer) o;
+        return Objects.equals(uuid, other.uuid) && Objects.equals(text, other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(uuid, text);
+    }
 }
@@ -4,6 +4,7 @@ import de.unistuttgart.finitequizbackend.data.Configuration;
 import de.unistuttgart.finitequizbackend.data.ConfigurationDTO;
 import java.util.List;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 /**
  * This mapper maps the ConfigurationDTO objects (used from external clients) and Configuration objects (used from internal code)
@@ -12,6 +13,8 @@ import org.mapstruct.Mapper;
 public interface ConfigurationMapper {
     ConfigurationDTO configurationToConfigurationDTO(final Configuration configuration);
 
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "lastModified", ignore = true)
     Configuration configurationDTOToConfiguration(final ConfigurationDTO configurationDTO);
 
     List<ConfigurationDTO> configurationsToConfigurationDTOs(final List<Configuration> configurations);
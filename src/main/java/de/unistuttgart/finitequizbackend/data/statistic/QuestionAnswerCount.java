@@ -0,0 +1,15 @@
+package de.unistuttgart.finitequizbackend.data.statistic;
+
+/**
+ * Projection of the answers of one question, counted by the database.
+ */
+public interface QuestionAnswerCount {
+    /**
+     * The id of the question as text, because native queries cannot return uuids.
+     */
+    String getQuestionId();
+
+    Long getCorrectAnswers();
+
+    Long getWrongAnswers();
+}
@@ -0,0 +1,30 @@
+package de.unistuttgart.finitequizbackend.data.statistic;
+
+/**
+ * Projection of the time spent at one percentile border of the game results of a configuration, computed by the
+ * database.
+ */
+public interface TimeSpentPercentile {
+    /**
+     * The percentile as fraction between 0 and 1.
+     */
+    Double getFraction();
+
+    /**
+     * The time spent of the last game result below the fraction, ordered by time spent (at rank ceil(fraction * n) - 1
+     * counted from 0), i.e. the toTime of a range that ends at the fraction. Null for the fraction 0.
+     */
+    Long getTimeSpent();
+
+    /**
+     * The time spent of the first game result at or above the fraction, ordered by time spent (at rank
+     * ceil(fraction * n) counted from 0), i.e. the fromTime of a range that starts at the fraction. Null for the
+     * fraction 1.
+     */
+    Long getNextTimeSpent();
+
+    /**
+     * The number of game results the percentile was computed of.
+     */
+    Long getGameResultCount();
+}
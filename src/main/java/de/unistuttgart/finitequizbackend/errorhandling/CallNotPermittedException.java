@@ -0,0 +1,11 @@
+package de.unistuttgart.finitequizbackend.errorhandling;
+
+/**
+ * Thrown instead of calling another backend when its circuit is open or too many calls to it are in progress.
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    public CallNotPermittedException(final String message) {
+        super(message);
+    }
+}
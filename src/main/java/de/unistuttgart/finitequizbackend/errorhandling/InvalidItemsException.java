@@ -0,0 +1,19 @@
+package de.unistuttgart.finitequizbackend.errorhandling;
+
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Thrown when items of a bulk request are invalid.
+ * Contains one error per invalid field of an item, prefixed with the position of the item in the request.
+ */
+@Getter
+public class InvalidItemsException extends RuntimeException {
+
+    private final List<String> errors;
+
+    public InvalidItemsException(final List<String> errors) {
+        super(String.format("%s invalid items", errors.size()));
+        this.errors = errors;
+    }
+}
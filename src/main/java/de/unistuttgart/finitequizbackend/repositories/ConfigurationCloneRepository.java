@@ -0,0 +1,95 @@
+package de.unistuttgart.finitequizbackend.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Copies configurations inside the database with set-based INSERT ... SELECT statements, so that cloning does not
+ * load the questions and answers of the configuration.
+ *
+ * The ids of the copied questions are derived from the id of the original question and the id of the clone, so that
+ * the answers and links of a question can be copied without looking up the new question ids.
+ */
+@Repository
+public class ConfigurationCloneRepository {
+
+    /**
+     * The id of the copy of question q in clone c.
+     */
+    private static final String CLONED_QUESTION_ID = "cast(md5(cast(%s as text) || cast(c.clone_id as text)) as uuid)";
+
+    private static final String CLONES = "unnest(?) as c(clone_id)";
+
+    private static final String INSERT_CONFIGURATIONS =
+        "insert into configuration (id, version, last_modified) select c.clone_id, 1, ? from " + CLONES;
+
+    private static final String INSERT_QUESTIONS =
+        "insert into question (id, text, uuid) " +
+        "select " +
+        CLONED_QUESTION_ID.formatted("q.id") +
+        ", q.text, q.uuid " +
+        "from configuration_questions cq join question q on q.id = cq.questions_id cross join " +
+        CLONES +
+        " where cq.configuration_id = ?";
+
+    private static final String INSERT_RIGHT_ANSWERS =
+        "insert into question_right_answer (question_id, right_answer) " +
+        "select " +
+        CLONED_QUESTION_ID.formatted("a.question_id") +
+        ", a.right_answer " +
+        "from configuration_questions cq join question_right_answer a on a.question_id = cq.questions_id cross join " +
+        CLONES +
+        " where cq.configuration_id = ?";
+
+    private static final String INSERT_WRONG_ANSWERS =
+        "insert into question_wrong_answers (question_id, text, uuid) " +
+        "select " +
+        CLONED_QUESTION_ID.formatted("a.question_id") +
+        ", a.text, a.uuid " +
+        "from configuration_questions cq join question_wrong_answers a on a.question_id = cq.questions_id cross join " +
+        CLONES +
+        " where cq.configuration_id = ?";
+
+    private static final String INSERT_LINKS =
+        "insert into configuration_questions (configuration_id, questions_id) " +
+        "select c.clone_id, " +
+        CLONED_QUESTION_ID.formatted("cq.questions_id") +
+        " from configuration_questions cq cross join " +
+        CLONES +
+        " where cq.configuration_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Copies the configuration with its questions and answers once for every given clone id.
+     * The number of statements does not depend on the number of questions or clones.
+     *
+     * @param id       the id of the configuration to copy, it must exist
+     * @param cloneIds the ids of the new configurations
+     * @param created  the point in time the clones are created
+     */
+    public void cloneConfiguration(final UUID id, final List<UUID> cloneIds, final Date created) {
+        final UUID[] clones = cloneIds.toArray(UUID[]::new);
+        jdbcTemplate.update(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(INSERT_CONFIGURATIONS);
+            statement.setTimestamp(1, new Timestamp(created.getTime()));
+            statement.setArray(2, connection.createArrayOf("uuid", clones));
+            return statement;
+        });
+        for (final String sql : List.of(INSERT_QUESTIONS, INSERT_RIGHT_ANSWERS, INSERT_WRONG_ANSWERS, INSERT_LINKS)) {
+            jdbcTemplate.update(connection -> {
+                final PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setArray(1, connection.createArrayOf("uuid", clones));
+                statement.setObject(2, id);
+                return statement;
+            });
+        }
+    }
+}
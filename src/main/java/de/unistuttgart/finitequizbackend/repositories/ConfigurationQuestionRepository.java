@@ -0,0 +1,41 @@
+package de.unistuttgart.finitequizbackend.repositories;
+
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Writes the links between configurations and questions directly, so that questions can be added to a configuration
+ * without loading the (eagerly fetched) questions it already contains.
+ */
+@Repository
+public class ConfigurationQuestionRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    /**
+     * Adds the questions to the configuration with batched inserts.
+     * The questions must already be flushed to the database.
+     *
+     * @param configurationId the id of the configuration
+     * @param questionIds     the ids of the questions to add
+     */
+    public void addQuestions(final UUID configurationId, final List<UUID> questionIds) {
+        jdbcTemplate.batchUpdate(
+            "insert into configuration_questions (configuration_id, questions_id) values (?, ?)",
+            questionIds,
+            batchSize,
+            (statement, questionId) -> {
+                statement.setObject(1, configurationId);
+                statement.setObject(2, questionId);
+            }
+        );
+    }
+}
@@ -1,9 +1,106 @@
 package de.unistuttgart.finitequizbackend.repositories;
 
 import de.unistuttgart.finitequizbackend.data.Configuration;
+import de.unistuttgart.finitequizbackend.data.ConfigurationSummaryDTO;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ConfigurationRepository extends JpaRepository<Configuration, UUID> {}
+public interface ConfigurationRepository extends JpaRepository<Configuration, UUID> {
+    /**
+     * Loads a configuration together with its questions and their wrong answers in one query.
+     * The right answers are fetched separately with QuestionRepository.fetchRightAnswers, because fetching both
+     * answer collections in one query would multiply their rows.
+     *
+     * @param id the id of the configuration
+     * @return the configuration, if it exists
+     */
+    @Query(
+        "select distinct c from Configuration c left join fetch c.questions q left join fetch q.wrongAnswers where c.id = :id"
+    )
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    Optional<Configuration> findWithQuestionsById(@Param("id") UUID id);
+
+    /**
+     * Reads the first summaries of all configurations ordered by id, without loading their questions.
+     *
+     * @param pageable the number of summaries to read, the page number is ignored
+     * @return the summaries of the configurations
+     */
+    @Query(
+        "select new de.unistuttgart.finitequizbackend.data.ConfigurationSummaryDTO(c.id, size(c.questions), c.lastModified) " +
+        "from Configuration c order by c.id"
+    )
+    List<ConfigurationSummaryDTO> findSummaries(Pageable pageable);
+
+    /**
+     * Reads the summaries of the configurations following the given id ordered by id, without loading their questions.
+     *
+     * @param after    the id of the last configuration of the previous page
+     * @param pageable the number of summaries to read, the page number is ignored
+     * @return the summaries of the configurations
+     */
+    @Query(
+        "select new de.unistuttgart.finitequizbackend.data.ConfigurationSummaryDTO(c.id, size(c.questions), c.lastModified) " +
+        "from Configuration c where c.id > :after order by c.id"
+    )
+    List<ConfigurationSummaryDTO> findSummariesAfter(@Param("after") UUID after, Pageable pageable);
+
+    /**
+     * Reads only the version of a configuration, without loading its questions.
+     *
+     * @param id the id of the configuration
+     * @return the version of the configuration, if it exists
+     */
+    @Query("select c.version from Configuration c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    /**
+     * Increases the version of a configuration without loading it.
+     *
+     * @param id           the id of the configuration
+     * @param lastModified the point in time of the change
+     */
+    @Modifying
+    @Query("update Configuration c set c.version = c.version + 1, c.lastModified = :lastModified where c.id = :id")
+    void markModified(@Param("id") UUID id, @Param("lastModified") Date lastModified);
+
+    /**
+     * Removes a question from a configuration without loading the questions of the configuration.
+     *
+     * @param id         the id of the configuration
+     * @param questionId the id of the question
+     * @return the number of removed links, 0 if the question was not part of the configuration
+     */
+    @Modifying
+    @Query(
+        value = "delete from configuration_questions where configuration_id = :id and questions_id = :questionId",
+        nativeQuery = true
+    )
+    int removeQuestion(@Param("id") UUID id, @Param("questionId") UUID questionId);
+
+    /**
+     * Removes several questions from a configuration without loading the questions of the configuration.
+     *
+     * @param id          the id of the configuration
+     * @param questionIds the ids of the questions, must not be empty
+     * @return the number of removed links
+     */
+    @Modifying
+    @Query(
+        value = "delete from configuration_questions where configuration_id = :id and questions_id in (:questionIds)",
+        nativeQuery = true
+    )
+    int removeQuestions(@Param("id") UUID id, @Param("questionIds") Collection<UUID> questionIds);
+}
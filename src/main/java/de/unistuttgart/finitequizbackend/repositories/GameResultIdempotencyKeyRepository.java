@@ -0,0 +1,46 @@
+package de.unistuttgart.finitequizbackend.repositories;
+
+import de.unistuttgart.finitequizbackend.data.GameResult;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Claims the idempotency keys of saved game results in game_result_idempotency_key.
+ * The uniqueness cannot be enforced on the partitioned game_result table itself, because unique constraints of a
+ * partitioned table have to contain the partition key (played_time), which differs between retries.
+ */
+@Repository
+public class GameResultIdempotencyKeyRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claims the idempotency keys of the game results, game results without a key are skipped.
+     * The game results must already have an id.
+     *
+     * @param gameResults the saved game results
+     * @throws org.springframework.dao.DuplicateKeyException when a key was already claimed by the same player
+     */
+    public void claimKeys(final List<GameResult> gameResults) {
+        final List<GameResult> gameResultsWithKey = gameResults
+            .stream()
+            .filter(gameResult -> gameResult.getIdempotencyKey() != null)
+            .toList();
+        if (gameResultsWithKey.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+            "insert into game_result_idempotency_key (player_id, idempotency_key, game_result_id) values (?, ?, ?)",
+            gameResultsWithKey,
+            gameResultsWithKey.size(),
+            (statement, gameResult) -> {
+                statement.setString(1, gameResult.getPlayerId());
+                statement.setString(2, gameResult.getIdempotencyKey());
+                statement.setObject(3, gameResult.getId());
+            }
+        );
+    }
+}
@@ -1,12 +1,117 @@
 package de.unistuttgart.finitequizbackend.repositories;
 
 import de.unistuttgart.finitequizbackend.data.GameResult;
+import de.unistuttgart.finitequizbackend.data.statistic.QuestionAnswerCount;
+import de.unistuttgart.finitequizbackend.data.statistic.TimeSpentPercentile;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import javax.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface GameResultRepository extends JpaRepository<GameResult, Long> {
     List<GameResult> findByConfigurationAsUUID(UUID configurationId);
+
+    /**
+     * Loads the game results of a configuration played since the given point in time.
+     * Only the partitions of game_result since that point in time are scanned.
+     *
+     * @param configurationId the id of the configuration
+     * @param playedSince     the earliest played time
+     * @return the game results of the configuration
+     */
+    List<GameResult> findByConfigurationAsUUIDAndPlayedTimeGreaterThanEqual(UUID configurationId, Date playedSince);
+
+    Optional<GameResult> findByPlayerIdAndIdempotencyKey(String playerId, String idempotencyKey);
+
+    /**
+     * Loads all game results of a configuration together with their round results.
+     * The questions of the round results are not loaded, only their ids are available.
+     *
+     * @param configurationId the id of the configuration
+     * @return the game results of the configuration
+     */
+    @Query(
+        "select distinct g from GameResult g left join fetch g.roundResults " +
+        "where g.configurationAsUUID = :configurationId"
+    )
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    List<GameResult> findWithRoundResultsByConfigurationAsUUID(@Param("configurationId") UUID configurationId);
+
+    /**
+     * Loads the game results of a configuration played since the given point in time together with their round
+     * results. Only the partitions of game_result since that point in time are scanned.
+     *
+     * @param configurationId the id of the configuration
+     * @param playedSince     the earliest played time
+     * @return the game results of the configuration
+     */
+    @Query(
+        "select distinct g from GameResult g left join fetch g.roundResults " +
+        "where g.configurationAsUUID = :configurationId and g.playedTime >= :playedSince"
+    )
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    List<GameResult> findWithRoundResultsByConfigurationAsUUID(
+        @Param("configurationId") UUID configurationId,
+        @Param("playedSince") Date playedSince
+    );
+
+    /**
+     * Counts the correct and wrong answers of each question in the game results of a configuration played since the
+     * given point in time. Only one row per answered question is returned.
+     *
+     * @param configurationId the id of the configuration
+     * @param playedSince     the earliest played time
+     * @return the answers of each answered question
+     */
+    @Query(
+        value = "select cast(r.question_id as varchar) as \"questionId\", " +
+        "count(*) filter (where r.correct) as \"correctAnswers\", " +
+        "count(*) filter (where not r.correct) as \"wrongAnswers\" " +
+        "from game_result g join game_result_round r on r.game_result_id = g.id " +
+        "where g.configuration_asuuid = :configurationId and g.played_time >= :playedSince " +
+        "group by r.question_id",
+        nativeQuery = true
+    )
+    List<QuestionAnswerCount> countAnswersByQuestion(
+        @Param("configurationId") UUID configurationId,
+        @Param("playedSince") Date playedSince
+    );
+
+    /**
+     * Finds the time spent at the percentile borders of the game results of a configuration played since the given
+     * point in time: the game results are ranked by time spent, and for each fraction the times of the game results
+     * right below and at rank ceil(fraction * n) are returned. Only one row per border is returned, none if there are
+     * no game results.
+     *
+     * @param configurationId the id of the configuration
+     * @param playedSince     the earliest played time
+     * @param fractions       the borders as comma separated fractions between 0 and 1, e.g. "0,0.5,1"
+     * @return the time spent at each border
+     */
+    @Query(
+        value = "select border.fraction as \"fraction\", " +
+        "max(ranked.time_spent) filter (where ranked.time_rank = border.time_rank - 1) as \"timeSpent\", " +
+        "max(ranked.time_spent) filter (where ranked.time_rank = border.time_rank) as \"nextTimeSpent\", " +
+        "max(ranked.game_result_count) as \"gameResultCount\" " +
+        "from (select time_spent, row_number() over (order by time_spent) - 1 as time_rank, " +
+        "count(*) over () as game_result_count " +
+        "from game_result where configuration_asuuid = :configurationId and played_time >= :playedSince) ranked " +
+        "cross join lateral (select fraction, cast(ceil(fraction * ranked.game_result_count) as bigint) as time_rank " +
+        "from unnest(cast(string_to_array(:fractions, ',') as float8[])) as fraction) border " +
+        "where ranked.time_rank in (border.time_rank - 1, border.time_rank) " +
+        "group by border.fraction",
+        nativeQuery = true
+    )
+    List<TimeSpentPercentile> findTimeSpentPercentiles(
+        @Param("configurationId") UUID configurationId,
+        @Param("playedSince") Date playedSince,
+        @Param("fractions") String fractions
+    );
 }
@@ -0,0 +1,86 @@
+package de.unistuttgart.finitequizbackend.repositories;
+
+import de.unistuttgart.finitequizbackend.data.OverworldResultOutboxEntry;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OverworldResultOutboxRepository extends JpaRepository<OverworldResultOutboxEntry, UUID> {
+    /**
+     * Locks the next pending entries that are due for delivery.
+     * Entries locked by another instance are skipped, so several instances can dispatch at the same time.
+     *
+     * @param now   the current point in time
+     * @param limit the maximal number of entries
+     * @return the locked entries, oldest due first
+     */
+    @Query(
+        value = "select * from overworld_result_outbox_entry where status = 'PENDING' and next_attempt_at <= :now " +
+        "order by next_attempt_at limit :limit for update skip locked",
+        nativeQuery = true
+    )
+    List<OverworldResultOutboxEntry> lockDueEntries(@Param("now") Date now, @Param("limit") int limit);
+
+    /**
+     * Postpones the next delivery attempt of the entries, e.g. to lease them to the dispatcher that claimed them.
+     *
+     * @param ids           the ids of the entries
+     * @param nextAttemptAt the earliest point in time of the next delivery attempt
+     */
+    @Modifying
+    @Query("update OverworldResultOutboxEntry e set e.nextAttemptAt = :nextAttemptAt where e.id in :ids")
+    void scheduleEntries(@Param("ids") List<UUID> ids, @Param("nextAttemptAt") Date nextAttemptAt);
+
+    /**
+     * Counts a failed delivery attempt of the entry.
+     *
+     * @param id            the id of the entry
+     * @param lastError     the error of the failed attempt
+     * @param nextAttemptAt the earliest point in time of the next delivery attempt
+     */
+    @Modifying
+    @Query(
+        "update OverworldResultOutboxEntry e set e.attempts = e.attempts + 1, e.lastError = :lastError, " +
+        "e.nextAttemptAt = :nextAttemptAt where e.id = :id"
+    )
+    void retryEntry(
+        @Param("id") UUID id,
+        @Param("lastError") String lastError,
+        @Param("nextAttemptAt") Date nextAttemptAt
+    );
+
+    /**
+     * Counts a failed delivery attempt of the entry and stops retrying it. The access token is removed.
+     *
+     * @param id        the id of the entry
+     * @param lastError the error of the failed attempt
+     * @param status    the status DEAD
+     */
+    @Modifying
+    @Query(
+        "update OverworldResultOutboxEntry e set e.attempts = e.attempts + 1, e.lastError = :lastError, " +
+        "e.status = :status, e.accessToken = null where e.id = :id"
+    )
+    void deadLetterEntry(
+        @Param("id") UUID id,
+        @Param("lastError") String lastError,
+        @Param("status") OverworldResultOutboxEntry.Status status
+    );
+
+    /**
+     * Deletes a delivered entry. Does nothing if the entry was already deleted by another dispatcher.
+     *
+     * @param id the id of the entry
+     */
+    @Modifying
+    @Query("delete from OverworldResultOutboxEntry e where e.id = :id")
+    void deleteDeliveredEntry(@Param("id") UUID id);
+
+    long countByStatus(OverworldResultOutboxEntry.Status status);
+}
@@ -1,9 +1,77 @@
 package de.unistuttgart.finitequizbackend.repositories;
 
 import de.unistuttgart.finitequizbackend.data.Question;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import javax.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface QuestionRepository extends JpaRepository<Question, UUID> {}
+public interface QuestionRepository extends JpaRepository<Question, UUID> {
+    /**
+     * Initializes the right answers of all given questions with one query.
+     * The questions must be managed by the current persistence context and the collection must not be empty.
+     *
+     * @param questions the questions whose right answers should be loaded
+     * @return the given questions
+     */
+    @Query("select distinct q from Question q left join fetch q.rightAnswer where q in :questions")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    List<Question> fetchRightAnswers(@Param("questions") Collection<Question> questions);
+
+    /**
+     * Searches a question that is part of the given configuration, without loading the other questions.
+     *
+     * @param configurationId the id of the configuration
+     * @param questionId      the id of the question
+     * @return the question, if it is part of the configuration
+     */
+    @Query("select q from Configuration c join c.questions q where c.id = :configurationId and q.id = :questionId")
+    Optional<Question> findInConfiguration(
+        @Param("configurationId") UUID configurationId,
+        @Param("questionId") UUID questionId
+    );
+
+    /**
+     * Checks if a question is part of the given configuration, without loading the configuration or the question.
+     *
+     * @param configurationId the id of the configuration
+     * @param questionId      the id of the question
+     * @return true if the question is part of the configuration
+     */
+    @Query(
+        "select case when count(q) > 0 then true else false end " +
+        "from Configuration c join c.questions q where c.id = :configurationId and q.id = :questionId"
+    )
+    boolean existsInConfiguration(@Param("configurationId") UUID configurationId, @Param("questionId") UUID questionId);
+
+    /**
+     * Filters the given question ids to the ones that are part of the configuration.
+     *
+     * @param configurationId the id of the configuration
+     * @param questionIds     the ids of the questions, must not be empty
+     * @return the ids of the given questions that are part of the configuration
+     */
+    @Query("select q.id from Configuration c join c.questions q where c.id = :configurationId and q.id in :questionIds")
+    List<UUID> findIdsInConfiguration(
+        @Param("configurationId") UUID configurationId,
+        @Param("questionIds") Collection<UUID> questionIds
+    );
+
+    /**
+     * Loads the questions with the given ids together with their wrong answers in one query.
+     * The right answers can be initialized afterwards with fetchRightAnswers.
+     *
+     * @param ids the ids of the questions, must not be empty
+     * @return the found questions
+     */
+    @Query("select distinct q from Question q left join fetch q.wrongAnswers where q.id in :ids")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    List<Question> findWithWrongAnswersByIdIn(@Param("ids") Collection<UUID> ids);
+}
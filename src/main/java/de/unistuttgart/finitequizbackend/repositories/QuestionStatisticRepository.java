@@ -0,0 +1,187 @@
+package de.unistuttgart.finitequizbackend.repositories;
+
+import de.unistuttgart.finitequizbackend.data.GameResult;
+import de.unistuttgart.finitequizbackend.data.QuestionStatistic;
+import de.unistuttgart.finitequizbackend.data.RoundResult;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Maintains the per-question counters in question_statistic with atomic upserts, so that concurrent submissions (also
+ * on other instances) only lock the counter rows of the answered questions.
+ *
+ * Updates take a shared advisory lock per configuration and a recount takes it exclusively, so a recount only makes
+ * the submissions of the configuration it recounts wait.
+ */
+@Repository
+public class QuestionStatisticRepository {
+
+    /**
+     * Arbitrary first key of the advisory locks of the counters, the second key is the hash code of the configuration
+     * id.
+     */
+    static final int COUNTER_LOCK_CLASS = 4_172_021;
+
+    /**
+     * Counters are always locked in this order, so that two batches answering the same questions cannot deadlock.
+     */
+    private static final Comparator<QuestionStatistic> LOCK_ORDER = Comparator
+        .comparing(QuestionStatistic::getConfigurationId)
+        .thenComparing(QuestionStatistic::getQuestionId);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the round results of the game results to the counters of their questions.
+     *
+     * @param gameResults the saved game results
+     */
+    public void countRoundResults(final List<GameResult> gameResults) {
+        final Map<QuestionStatistic.Key, QuestionStatistic> increments = new HashMap<>();
+        for (final GameResult gameResult : gameResults) {
+            for (final RoundResult roundResult : gameResult.getRoundResults()) {
+                final QuestionStatistic increment = increments.computeIfAbsent(
+                    new QuestionStatistic.Key(gameResult.getConfigurationAsUUID(), roundResult.getQuestion().getId()),
+                    key -> new QuestionStatistic(key.getConfigurationId(), key.getQuestionId(), 0, 0, 0)
+                );
+                increment.setAttempts(increment.getAttempts() + 1);
+                if (roundResult.isCorrect()) {
+                    increment.setCorrectAnswers(increment.getCorrectAnswers() + 1);
+                } else {
+                    increment.setWrongAnswers(increment.getWrongAnswers() + 1);
+                }
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+        final List<QuestionStatistic> sortedIncrements = new ArrayList<>(increments.values());
+        sortedIncrements.sort(LOCK_ORDER);
+        lockConfigurationsShared(sortedIncrements.stream().map(QuestionStatistic::getConfigurationId).toList());
+        jdbcTemplate.batchUpdate(
+            "insert into question_statistic (configuration_id, question_id, attempts, correct_answers, wrong_answers) " +
+            "values (?, ?, ?, ?, ?) on conflict (configuration_id, question_id) do update " +
+            "set attempts = question_statistic.attempts + excluded.attempts, " +
+            "correct_answers = question_statistic.correct_answers + excluded.correct_answers, " +
+            "wrong_answers = question_statistic.wrong_answers + excluded.wrong_answers",
+            sortedIncrements,
+            sortedIncrements.size(),
+            (statement, increment) -> {
+                statement.setObject(1, increment.getConfigurationId());
+                statement.setObject(2, increment.getQuestionId());
+                statement.setInt(3, increment.getAttempts());
+                statement.setInt(4, increment.getCorrectAnswers());
+                statement.setInt(5, increment.getWrongAnswers());
+            }
+        );
+    }
+
+    /**
+     * @param configurationId the id of the configuration
+     * @return the counters of all questions of the configuration that were answered at least once
+     */
+    public List<QuestionStatistic> findByConfigurationId(final UUID configurationId) {
+        return jdbcTemplate.query(
+            "select configuration_id, question_id, attempts, correct_answers, wrong_answers from question_statistic " +
+            "where configuration_id = ?",
+            (resultSet, rowNumber) ->
+                new QuestionStatistic(
+                    resultSet.getObject("configuration_id", UUID.class),
+                    resultSet.getObject("question_id", UUID.class),
+                    resultSet.getInt("attempts"),
+                    resultSet.getInt("correct_answers"),
+                    resultSet.getInt("wrong_answers")
+                ),
+            configurationId
+        );
+    }
+
+    /**
+     * @return true if no counters exist yet
+     */
+    public boolean isEmpty() {
+        return !Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject("select exists (select 1 from question_statistic)", Boolean.class)
+        );
+    }
+
+    /**
+     * @return true if at least one round result was saved
+     */
+    public boolean hasRoundResults() {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject("select exists (select 1 from game_result_round)", Boolean.class)
+        );
+    }
+
+    /**
+     * @param playedSince the oldest played time that is counted
+     * @return the ids of all configurations that have counters or game results played since the given time
+     */
+    public Set<UUID> findConfigurationIds(final Date playedSince) {
+        return new HashSet<>(
+            jdbcTemplate.queryForList(
+                "select configuration_asuuid from game_result " +
+                "where played_time >= ? and configuration_asuuid is not null " +
+                "union select configuration_id from question_statistic",
+                UUID.class,
+                playedSince
+            )
+        );
+    }
+
+    /**
+     * Replaces the counters of a configuration by the counts of the round results of its game results played since the
+     * given time. Waits for submissions to the configuration that are not committed yet, submissions to the
+     * configuration during the recount wait until the transaction ends.
+     * Must be called in a transaction.
+     *
+     * @param configurationId the id of the configuration
+     * @param playedSince     the oldest played time that is counted
+     * @return the number of counters of the configuration
+     */
+    public int recount(final UUID configurationId, final Date playedSince) {
+        jdbcTemplate.queryForList(
+            "select pg_advisory_xact_lock(?, ?)",
+            COUNTER_LOCK_CLASS,
+            configurationId.hashCode()
+        );
+        jdbcTemplate.update("delete from question_statistic where configuration_id = ?", configurationId);
+        return jdbcTemplate.update(
+            "insert into question_statistic (configuration_id, question_id, attempts, correct_answers, wrong_answers) " +
+            "select g.configuration_asuuid, r.question_id, count(*), " +
+            "count(*) filter (where r.correct), count(*) filter (where not r.correct) " +
+            "from game_result g join game_result_round r on r.game_result_id = g.id " +
+            "where g.configuration_asuuid = ? and g.played_time >= ? and r.question_id is not null " +
+            "group by g.configuration_asuuid, r.question_id",
+            configurationId,
+            playedSince
+        );
+    }
+
+    /**
+     * Takes the shared advisory locks of the configurations in ascending order, so that no recount can deadlock with
+     * submissions.
+     */
+    private void lockConfigurationsShared(final List<UUID> configurationIds) {
+        configurationIds
+            .stream()
+            .map(UUID::hashCode)
+            .distinct()
+            .sorted()
+            .forEach(lockKey ->
+                jdbcTemplate.queryForList("select pg_advisory_xact_lock_shared(?, ?)", COUNTER_LOCK_CLASS, lockKey)
+            );
+    }
+}
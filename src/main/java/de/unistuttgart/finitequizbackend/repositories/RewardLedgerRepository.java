@@ -0,0 +1,42 @@
+package de.unistuttgart.finitequizbackend.repositories;
+
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Updates the reward ledger with atomic upserts, so that concurrent submissions (also on other instances) only lock
+ * the ledger row of one player and configuration.
+ */
+@Repository
+public class RewardLedgerRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Counts a perfect round of the player in the configuration, unless the player already has the given number of
+     * rewarded perfect rounds.
+     *
+     * @param playerId        the id of the player
+     * @param configurationId the id of the configuration
+     * @param maxPerfectRounds the maximal number of rewarded perfect rounds
+     * @return true if the round was counted, false if the player already reached the maximum
+     */
+    public boolean tryCountPerfectRound(final String playerId, final UUID configurationId, final int maxPerfectRounds) {
+        return !jdbcTemplate
+            .queryForList(
+                "insert into reward_ledger_entry (player_id, configuration_id, perfect_rounds) values (?, ?, 1) " +
+                "on conflict (player_id, configuration_id) do update " +
+                "set perfect_rounds = reward_ledger_entry.perfect_rounds + 1 " +
+                "where reward_ledger_entry.perfect_rounds < ? " +
+                "returning perfect_rounds",
+                Integer.class,
+                playerId,
+                configurationId,
+                maxPerfectRounds
+            )
+            .isEmpty();
+    }
+}
@@ -0,0 +1,175 @@
+package de.unistuttgart.finitequizbackend.repositories;
+
+import de.unistuttgart.finitequizbackend.data.GameResult;
+import de.unistuttgart.finitequizbackend.data.TimeSpentBucket;
+import de.unistuttgart.finitequizbackend.service.TimeSpentHistogram;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Maintains the time spent histograms in time_spent_bucket with atomic upserts, so that concurrent submissions (also on
+ * other instances) only lock the rows of the buckets they count in.
+ *
+ * Like the counters of the QuestionStatisticRepository, updates take a shared advisory lock per configuration and a
+ * recount takes it exclusively.
+ */
+@Repository
+public class TimeSpentHistogramRepository {
+
+    /**
+     * Arbitrary first key of the advisory locks of the histograms, the second key is the hash code of the configuration
+     * id.
+     */
+    static final int HISTOGRAM_LOCK_CLASS = 4_172_023;
+
+    /**
+     * Buckets are always locked in this order, so that two batches counting in the same buckets cannot deadlock.
+     */
+    private static final Comparator<TimeSpentBucket> LOCK_ORDER = Comparator
+        .comparing(TimeSpentBucket::getConfigurationId)
+        .thenComparingInt(TimeSpentBucket::getBucket);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the time spent of the game results to the histograms of their configurations.
+     *
+     * @param gameResults the saved game results
+     */
+    public void countTimeSpent(final List<GameResult> gameResults) {
+        final Map<TimeSpentBucket.Key, TimeSpentBucket> increments = new HashMap<>();
+        for (final GameResult gameResult : gameResults) {
+            final TimeSpentBucket increment = increments.computeIfAbsent(
+                new TimeSpentBucket.Key(
+                    gameResult.getConfigurationAsUUID(),
+                    TimeSpentHistogram.bucketOf(gameResult.getTimeSpent())
+                ),
+                key -> new TimeSpentBucket(key.getConfigurationId(), key.getBucket(), 0)
+            );
+            increment.setCount(increment.getCount() + 1);
+        }
+        final List<TimeSpentBucket> sortedIncrements = new ArrayList<>(increments.values());
+        lockConfigurationsShared(sortedIncrements.stream().map(TimeSpentBucket::getConfigurationId).toList());
+        saveIncrements(sortedIncrements);
+    }
+
+    /**
+     * @param configurationId the id of the configuration
+     * @return the histogram of the time spent on the game results of the configuration, empty if there are none
+     */
+    public TimeSpentHistogram findByConfigurationId(final UUID configurationId) {
+        final TimeSpentHistogram histogram = new TimeSpentHistogram();
+        jdbcTemplate.query(
+            "select bucket, count from time_spent_bucket where configuration_id = ?",
+            resultSet -> {
+                histogram.addToBucket(resultSet.getInt("bucket"), resultSet.getLong("count"));
+            },
+            configurationId
+        );
+        return histogram;
+    }
+
+    /**
+     * @return true if no buckets exist yet
+     */
+    public boolean isEmpty() {
+        return !Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject("select exists (select 1 from time_spent_bucket)", Boolean.class)
+        );
+    }
+
+    /**
+     * @param playedSince the oldest played time that is counted
+     * @return the ids of all configurations that have histograms or game results played since the given time
+     */
+    public Set<UUID> findConfigurationIds(final Date playedSince) {
+        return new HashSet<>(
+            jdbcTemplate.queryForList(
+                "select configuration_asuuid from game_result " +
+                "where played_time >= ? and configuration_asuuid is not null " +
+                "union select configuration_id from time_spent_bucket",
+                UUID.class,
+                playedSince
+            )
+        );
+    }
+
+    /**
+     * Replaces the histogram of a configuration by the time spent on its game results played since the given time.
+     * Submissions to the configuration during the recount wait until the transaction ends.
+     * Must be called in a transaction.
+     *
+     * @param configurationId the id of the configuration
+     * @param playedSince     the oldest played time that is counted
+     * @return the number of buckets of the configuration
+     */
+    public int recount(final UUID configurationId, final Date playedSince) {
+        jdbcTemplate.queryForList(
+            "select pg_advisory_xact_lock(?, ?)",
+            HISTOGRAM_LOCK_CLASS,
+            configurationId.hashCode()
+        );
+        jdbcTemplate.update("delete from time_spent_bucket where configuration_id = ?", configurationId);
+        final Map<Integer, TimeSpentBucket> buckets = new HashMap<>();
+        // there are only few distinct times per configuration, so they are counted by the database
+        jdbcTemplate.query(
+            "select time_spent, count(*) as results from game_result " +
+            "where configuration_asuuid = ? and played_time >= ? group by time_spent",
+            resultSet -> {
+                final TimeSpentBucket bucket = buckets.computeIfAbsent(
+                    TimeSpentHistogram.bucketOf(resultSet.getLong("time_spent")),
+                    index -> new TimeSpentBucket(configurationId, index, 0)
+                );
+                bucket.setCount(bucket.getCount() + resultSet.getLong("results"));
+            },
+            configurationId,
+            playedSince
+        );
+        saveIncrements(new ArrayList<>(buckets.values()));
+        return buckets.size();
+    }
+
+    /**
+     * Takes the shared advisory locks of the configurations in ascending order, so that no recount can deadlock with
+     * submissions.
+     */
+    private void lockConfigurationsShared(final List<UUID> configurationIds) {
+        configurationIds
+            .stream()
+            .map(UUID::hashCode)
+            .distinct()
+            .sorted()
+            .forEach(lockKey ->
+                jdbcTemplate.queryForList("select pg_advisory_xact_lock_shared(?, ?)", HISTOGRAM_LOCK_CLASS, lockKey)
+            );
+    }
+
+    private void saveIncrements(final List<TimeSpentBucket> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        increments.sort(LOCK_ORDER);
+        jdbcTemplate.batchUpdate(
+            "insert into time_spent_bucket (configuration_id, bucket, count) values (?, ?, ?) " +
+            "on conflict (configuration_id, bucket) do update set count = time_spent_bucket.count + excluded.count",
+            increments,
+            increments.size(),
+            (statement, increment) -> {
+                statement.setObject(1, increment.getConfigurationId());
+                statement.setInt(2, increment.getBucket());
+                statement.setLong(3, increment.getCount());
+            }
+        );
+    }
+}
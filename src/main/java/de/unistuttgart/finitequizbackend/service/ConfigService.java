@@ -1,20 +1,28 @@
 package de.unistuttgart.finitequizbackend.service;
 
+import de.unistuttgart.finitequizbackend.Constants;
+import de.unistuttgart.finitequizbackend.cache.ConfigurationCache;
+import de.unistuttgart.finitequizbackend.cache.ConfigurationPayloadCache;
+import de.unistuttgart.finitequizbackend.cache.StatisticCache;
 import de.unistuttgart.finitequizbackend.data.*;
 import de.unistuttgart.finitequizbackend.data.mapper.ConfigurationMapper;
 import de.unistuttgart.finitequizbackend.data.mapper.ImageMapper;
 import de.unistuttgart.finitequizbackend.data.mapper.QuestionMapper;
+import de.unistuttgart.finitequizbackend.errorhandling.InvalidItemsException;
+import de.unistuttgart.finitequizbackend.repositories.ConfigurationCloneRepository;
+import de.unistuttgart.finitequizbackend.repositories.ConfigurationQuestionRepository;
 import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
 import de.unistuttgart.finitequizbackend.repositories.ImageRepository;
 import de.unistuttgart.finitequizbackend.repositories.QuestionRepository;
-import de.unistuttgart.finitequizbackend.clients.OverworldClient;
 import java.util.*;
 import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
 
-import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -43,17 +51,30 @@ public class ConfigService {
     @Autowired
     QuestionRepository questionRepository;
 
+    @Autowired
+    ConfigurationQuestionRepository configurationQuestionRepository;
+
+    @Autowired
+    ConfigurationCloneRepository configurationCloneRepository;
+
+    @Autowired
+    Validator validator;
+
     @Autowired
     private ImageRepository imageRepository;
 
     @Autowired
-    private OverworldClient overworldClient;
+    private ConfigurationCache configurationCache;
 
     @Autowired
-    private JWTValidatorService jwtValidatorService;
+    private ConfigurationPayloadCache configurationPayloadCache;
+
+    @Autowired
+    private StatisticCache statisticCache;
 
     /**
-     * Search a configuration by given id
+     * Search a configuration by given id.
+     * The configuration is served from the configuration cache, so it must not be modified by the caller.
      *
      * @param id the id of the configuration searching for
      * @return the found configuration
@@ -64,55 +85,74 @@ public class ConfigService {
         if (id == null) {
             throw new IllegalArgumentException("id is null");
         }
-        return configurationRepository
-                .findById(id)
-                .orElseThrow(() ->
-                        new ResponseStatusException(
-                                HttpStatus.NOT_FOUND,
-                                String.format("There is no configuration with id %s.", id)
-                        )
-                );
+        return configurationCache.get(id, this::loadConfiguration);
     }
 
     /**
-     * Search a configuration by given id and get volume level from overworld-backend
+     * Search a configuration by given id that is at least as new as the given version.
+     * If the cached configuration is older, it is reloaded from the database.
      *
-     * @param id          the id of the configuration searching for
-     * @param accessToken the users access token
+     * @param id             the id of the configuration searching for
+     * @param minimumVersion the minimal version of the configuration, e.g. read with getConfigurationVersion
      * @return the found configuration
      * @throws ResponseStatusException  when configuration by configurationName could not be found
      * @throws IllegalArgumentException if at least one of the arguments is null
      */
-    public Configuration getAllConfigurations(final UUID id, final String accessToken) {
-        if (id == null) {
-            throw new IllegalArgumentException("id is null");
+    public Configuration getConfiguration(final UUID id, final long minimumVersion) {
+        final Configuration configuration = getConfiguration(id);
+        if (configuration.getVersion() >= minimumVersion) {
+            return configuration;
         }
-        final String userId = jwtValidatorService.extractUserId(accessToken);
+        configurationCache.invalidate(id);
+        return getConfiguration(id);
+    }
 
-        KeybindingDTO keyBindingVolumeLevel = overworldClient.getKeybindingStatistic(userId, "VOLUME_LEVEL", accessToken);
-        Integer volumeLevel;
-        if (keyBindingVolumeLevel.getKey() == null || keyBindingVolumeLevel.getKey().isEmpty()) {
-            volumeLevel = 0;
+    /**
+     * Get one page of configuration summaries ordered by id, without loading the questions of the configurations.
+     * The next page is requested with the nextCursor of the returned page.
+     *
+     * @param after the id of the last configuration of the previous page, null for the first page
+     * @param limit the maximal number of summaries of the page
+     * @return the page of configuration summaries
+     * @throws ResponseStatusException when the limit is out of range
+     */
+    public ConfigurationSummaryPageDTO getConfigurationSummaries(final UUID after, final int limit) {
+        if (limit < Constants.MIN_CONFIGURATION_PAGE_SIZE || limit > Constants.MAX_CONFIGURATION_PAGE_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    String.format(
+                            "limit must be between %s and %s",
+                            Constants.MIN_CONFIGURATION_PAGE_SIZE,
+                            Constants.MAX_CONFIGURATION_PAGE_SIZE
+                    )
+            );
         }
-        else {
-            try {
-                volumeLevel = Integer.parseInt(keyBindingVolumeLevel.getKey());
-            } catch (NumberFormatException e) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid volume level format.");
-            }
+        // read one summary more than requested to know if there is a next page
+        final PageRequest pageRequest = PageRequest.of(0, limit + 1);
+        final List<ConfigurationSummaryDTO> summaries = after == null
+                ? configurationRepository.findSummaries(pageRequest)
+                : configurationRepository.findSummariesAfter(after, pageRequest);
+        if (summaries.size() <= limit) {
+            return new ConfigurationSummaryPageDTO(summaries, null);
         }
+        final List<ConfigurationSummaryDTO> page = summaries.subList(0, limit);
+        return new ConfigurationSummaryPageDTO(new ArrayList<>(page), page.get(limit - 1).getId());
+    }
 
-        Configuration config = configurationRepository
-                .findById(id)
-                .orElseThrow(() ->
-                        new ResponseStatusException(
-                                HttpStatus.NOT_FOUND,
-                                String.format("There is no configuration with id %s.", id)
-                        )
-                );
-        config.setVolumeLevel(volumeLevel);
+    /**
+     * Get the version of a configuration without loading its questions
+     *
+     * @param id the id of the configuration
+     * @return the version of the configuration
+     * @throws ResponseStatusException  when configuration with the id does not exist
+     * @throws IllegalArgumentException if at least one of the arguments is null
+     */
+    public long getConfigurationVersion(final UUID id) {
+        if (id == null) {
+            throw new IllegalArgumentException("id is null");
+        }
         return configurationRepository
-                .findById(id)
+                .findVersionById(id)
                 .orElseThrow(() ->
                         new ResponseStatusException(
                                 HttpStatus.NOT_FOUND,
@@ -121,7 +161,6 @@ public class ConfigService {
                 );
     }
 
-
     /**
      * Save a configuration
      *
@@ -133,9 +172,10 @@ public class ConfigService {
         if (configurationDTO == null) {
             throw new IllegalArgumentException("configurationDTO is null");
         }
-        final Configuration savedConfiguration = configurationRepository.save(
-                configurationMapper.configurationDTOToConfiguration(configurationDTO)
-        );
+        final Configuration configuration = configurationMapper.configurationDTOToConfiguration(configurationDTO);
+        configuration.markModified();
+        final Configuration savedConfiguration = configurationRepository.save(configuration);
+        invalidateConfiguration(savedConfiguration.getId());
         return configurationMapper.configurationToConfigurationDTO(savedConfiguration);
     }
 
@@ -152,9 +192,11 @@ public class ConfigService {
         if (id == null || configurationDTO == null) {
             throw new IllegalArgumentException("id or configurationDTO is null");
         }
-        final Configuration configuration = getConfiguration(id);
+        final Configuration configuration = findConfiguration(id);
         configuration.setQuestions(questionMapper.questionDTOsToQuestions(configurationDTO.getQuestions()));
+        configuration.markModified();
         final Configuration updatedConfiguration = configurationRepository.save(configuration);
+        invalidateConfiguration(id);
         return configurationMapper.configurationToConfigurationDTO(updatedConfiguration);
     }
 
@@ -170,8 +212,9 @@ public class ConfigService {
         if (id == null) {
             throw new IllegalArgumentException("id is null");
         }
-        final Configuration configuration = getConfiguration(id);
+        final Configuration configuration = findConfiguration(id);
         configurationRepository.delete(configuration);
+        invalidateConfiguration(id);
         return configurationMapper.configurationToConfigurationDTO(configuration);
     }
 
@@ -188,13 +231,215 @@ public class ConfigService {
         if (id == null || questionDTO == null) {
             throw new IllegalArgumentException("id or questionDTO is null");
         }
-        final Configuration configuration = getConfiguration(id);
+        final Configuration configuration = findConfiguration(id);
         final Question question = questionRepository.save(questionMapper.questionDTOToQuestion(questionDTO));
         configuration.addQuestion(question);
+        configuration.markModified();
         configurationRepository.save(configuration);
+        invalidateConfiguration(id);
         return questionMapper.questionToQuestionDTO(question);
     }
 
+    /**
+     * Add several questions to a specific configuration in one transaction.
+     * All questions are validated first; if any of them is invalid, none is added. The questions, their answers and
+     * the links to the configuration are written with batched inserts, without loading the existing questions.
+     *
+     * @param id           the id of the configuration where the questions should be added
+     * @param questionDTOs the questions that should be added
+     * @return the added questions as DTOs, in the order of the request
+     * @throws ResponseStatusException  when configuration with the id does not exist or too many questions are given
+     * @throws InvalidItemsException    when at least one of the questions is invalid
+     * @throws IllegalArgumentException if at least one of the arguments is null
+     */
+    public List<QuestionDTO> addQuestionsToConfiguration(final UUID id, final List<QuestionDTO> questionDTOs) {
+        if (id == null || questionDTOs == null) {
+            throw new IllegalArgumentException("id or questionDTOs is null");
+        }
+        if (questionDTOs.size() > Constants.MAX_BULK_QUESTIONS) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    String.format("At most %s questions can be added at once.", Constants.MAX_BULK_QUESTIONS)
+            );
+        }
+        final List<String> errors = new ArrayList<>();
+        validateQuestions("questions", questionDTOs, errors);
+        if (!errors.isEmpty()) {
+            throw new InvalidItemsException(errors);
+        }
+        assertConfigurationExists(id);
+        final List<Question> questions = insertQuestions(id, questionDTOs);
+        configurationRepository.markModified(id, new Date());
+        invalidateConfiguration(id);
+        return questions.stream().map(questionMapper::questionToQuestionDTO).toList();
+    }
+
+    /**
+     * Applies the added, removed and modified questions to a specific configuration in one transaction.
+     * Only the rows of the changed questions are written, and the version of the configuration is increased once.
+     * If any change is invalid, nothing is changed.
+     *
+     * @param id    the id of the configuration that should be changed
+     * @param patch the changes of the questions
+     * @return the applied changes, the added questions contain their new ids
+     * @throws ResponseStatusException  when configuration with the id or a removed or modified question does not
+     *                                  exist, or too many changes are given
+     * @throws InvalidItemsException    when at least one of the changes is invalid
+     * @throws IllegalArgumentException if at least one of the arguments is null
+     */
+    public ConfigurationPatchDTO patchConfiguration(final UUID id, final ConfigurationPatchDTO patch) {
+        if (id == null || patch == null) {
+            throw new IllegalArgumentException("id or patch is null");
+        }
+        final List<QuestionDTO> added = patch.getAdded() == null ? List.of() : patch.getAdded();
+        final Set<UUID> removed = patch.getRemoved() == null ? Set.of() : patch.getRemoved();
+        final List<QuestionDTO> modified = patch.getModified() == null ? List.of() : patch.getModified();
+        if (added.size() + removed.size() + modified.size() > Constants.MAX_BULK_QUESTIONS) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    String.format("At most %s questions can be changed at once.", Constants.MAX_BULK_QUESTIONS)
+            );
+        }
+
+        final List<String> errors = new ArrayList<>();
+        validateQuestions("added", added, errors);
+        validateQuestions("modified", modified, errors);
+        final Map<UUID, QuestionDTO> modifiedById = new HashMap<>();
+        for (int i = 0; i < modified.size(); i++) {
+            final QuestionDTO questionDTO = modified.get(i);
+            if (questionDTO == null) {
+                continue;
+            }
+            if (questionDTO.getId() == null) {
+                errors.add(String.format("modified[%s].id: id cannot be null", i));
+            } else if (removed.contains(questionDTO.getId())) {
+                errors.add(String.format("modified[%s].id: question %s is also removed", i, questionDTO.getId()));
+            } else if (modifiedById.put(questionDTO.getId(), questionDTO) != null) {
+                errors.add(String.format("modified[%s].id: question %s is modified twice", i, questionDTO.getId()));
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new InvalidItemsException(errors);
+        }
+        assertConfigurationExists(id);
+        assertQuestionsInConfiguration(id, removed, modifiedById.keySet());
+
+        if (!removed.isEmpty()) {
+            configurationRepository.removeQuestions(id, removed);
+            questionRepository.deleteAll(questionRepository.findAllById(removed));
+        }
+        if (!modifiedById.isEmpty()) {
+            final List<Question> questions = questionRepository.findWithWrongAnswersByIdIn(modifiedById.keySet());
+            questionRepository.fetchRightAnswers(questions);
+            questions.forEach(question -> applyQuestionChanges(question, modifiedById.get(question.getId())));
+        }
+        final List<Question> addedQuestions = insertQuestions(id, added);
+
+        if (!added.isEmpty() || !removed.isEmpty() || !modified.isEmpty()) {
+            configurationRepository.markModified(id, new Date());
+            invalidateConfiguration(id);
+        }
+        return new ConfigurationPatchDTO(
+                addedQuestions.stream().map(questionMapper::questionToQuestionDTO).toList(),
+                removed,
+                modified
+        );
+    }
+
+    /**
+     * Validates all questions and collects the errors of every invalid question.
+     *
+     * @param name         the name of the list of questions, used as prefix of the errors
+     * @param questionDTOs the questions to validate
+     * @param errors       the list the errors are added to
+     */
+    private void validateQuestions(final String name, final List<QuestionDTO> questionDTOs, final List<String> errors) {
+        for (int i = 0; i < questionDTOs.size(); i++) {
+            final QuestionDTO questionDTO = questionDTOs.get(i);
+            if (questionDTO == null) {
+                errors.add(String.format("%s[%s]: question cannot be null", name, i));
+                continue;
+            }
+            for (final ConstraintViolation<QuestionDTO> violation : validator.validate(questionDTO)) {
+                errors.add(
+                        String.format("%s[%s].%s: %s", name, i, violation.getPropertyPath(), violation.getMessage())
+                );
+            }
+        }
+    }
+
+    /**
+     * Saves new questions and adds them to a configuration with batched inserts, without loading the existing
+     * questions of the configuration.
+     *
+     * @param id           the id of the configuration
+     * @param questionDTOs the questions to add
+     * @return the saved questions
+     */
+    private List<Question> insertQuestions(final UUID id, final List<QuestionDTO> questionDTOs) {
+        if (questionDTOs.isEmpty()) {
+            return List.of();
+        }
+        final List<Question> questions = questionRepository.saveAllAndFlush(
+                questionDTOs.stream().map(questionMapper::questionDTOToQuestion).toList()
+        );
+        configurationQuestionRepository.addQuestions(id, questions.stream().map(Question::getId).toList());
+        return questions;
+    }
+
+    /**
+     * Checks that all given questions are part of the configuration and reports all that are not at once.
+     *
+     * @param id         the id of the configuration
+     * @param removed    the ids of the removed questions
+     * @param modified   the ids of the modified questions
+     * @throws ResponseStatusException when at least one of the questions is not part of the configuration
+     */
+    private void assertQuestionsInConfiguration(final UUID id, final Set<UUID> removed, final Set<UUID> modified) {
+        final Set<UUID> questionIds = new HashSet<>(removed);
+        questionIds.addAll(modified);
+        if (questionIds.isEmpty()) {
+            return;
+        }
+        questionRepository.findIdsInConfiguration(id, questionIds).forEach(questionIds::remove);
+        if (!questionIds.isEmpty()) {
+            throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND,
+                    String.format("Questions with IDs %s do not exist in configuration %s.", questionIds, id)
+            );
+        }
+    }
+
+    /**
+     * Copies the changed fields of the question DTO to the question.
+     * Unchanged fields and answer collections are not touched, so that no rows are rewritten for them.
+     *
+     * @param question    the managed question to change
+     * @param questionDTO the new content of the question
+     */
+    private void applyQuestionChanges(final Question question, final QuestionDTO questionDTO) {
+        final QuestionDTO currentQuestionDTO = questionMapper.questionToQuestionDTO(question);
+        final Question changedQuestion = questionMapper.questionDTOToQuestion(questionDTO);
+        if (!Objects.equals(currentQuestionDTO.getText(), questionDTO.getText())) {
+            question.setText(changedQuestion.getText());
+        }
+        if (!Objects.equals(currentQuestionDTO.getUuid(), questionDTO.getUuid())) {
+            question.setUuid(changedQuestion.getUuid());
+        }
+        if (!Objects.equals(currentQuestionDTO.getRightAnswer(), questionDTO.getRightAnswer())) {
+            question.getRightAnswer().clear();
+            if (changedQuestion.getRightAnswer() != null) {
+                question.getRightAnswer().addAll(changedQuestion.getRightAnswer());
+            }
+        }
+        if (!Objects.equals(currentQuestionDTO.getWrongAnswers(), questionDTO.getWrongAnswers())) {
+            question.getWrongAnswers().clear();
+            if (changedQuestion.getWrongAnswers() != null) {
+                question.getWrongAnswers().addAll(changedQuestion.getWrongAnswers());
+            }
+        }
+    }
+
     /**
      * Delete a question from a specific configuration
      *
@@ -208,18 +453,15 @@ public class ConfigService {
         if (id == null || questionId == null) {
             throw new IllegalArgumentException("id or questionId is null");
         }
-        final Configuration configuration = getConfiguration(id);
-        final Question question = getQuestionInConfiguration(questionId, configuration)
-                .orElseThrow(() ->
-                        new ResponseStatusException(
-                                HttpStatus.NOT_FOUND,
-                                String.format("Question with ID %s does not exist in configuration %s.", questionId, configuration)
-                        )
-                );
-        configuration.removeQuestion(question);
-        configurationRepository.save(configuration);
+        final Question question = questionRepository
+                .findInConfiguration(id, questionId)
+                .orElseThrow(() -> questionNotFound(id, questionId));
+        final QuestionDTO questionDTO = questionMapper.questionToQuestionDTO(question);
+        configurationRepository.removeQuestion(id, questionId);
         questionRepository.delete(question);
-        return questionMapper.questionToQuestionDTO(question);
+        configurationRepository.markModified(id, new Date());
+        invalidateConfiguration(id);
+        return questionDTO;
     }
 
     /**
@@ -240,16 +482,14 @@ public class ConfigService {
         if (id == null || questionId == null || questionDTO == null) {
             throw new IllegalArgumentException("id or questionId or questionDTO is null");
         }
-        final Configuration configuration = getConfiguration(id);
-        if (getQuestionInConfiguration(questionId, configuration).isEmpty()) {
-            throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND,
-                    String.format("Question with ID %s does not exist in configuration %s.", questionId, configuration)
-            );
+        if (!questionRepository.existsInConfiguration(id, questionId)) {
+            throw questionNotFound(id, questionId);
         }
         final Question question = questionMapper.questionDTOToQuestion(questionDTO);
         question.setId(questionId);
         final Question savedQuestion = questionRepository.save(question);
+        configurationRepository.markModified(id, new Date());
+        invalidateConfiguration(id);
         return questionMapper.questionToQuestionDTO(savedQuestion);
     }
 
@@ -258,40 +498,127 @@ public class ConfigService {
      *
      * @param id the id of the configuration to be cloned
      * @return the new id of the cloned configuration
+     * @throws ResponseStatusException  when configuration with the id does not exist
+     * @throws IllegalArgumentException if at least one of the arguments is null
      */
     public UUID cloneConfiguration(final UUID id) {
-        Configuration config = configurationRepository
+        return cloneConfiguration(id, 1).get(0);
+    }
+
+    /**
+     * Clones the configuration with the given id several times.
+     * The questions and answers are copied inside the database, without loading them.
+     *
+     * @param id    the id of the configuration to be cloned
+     * @param count the number of clones to create
+     * @return the new ids of the cloned configurations
+     * @throws ResponseStatusException  when configuration with the id does not exist or the count is out of range
+     * @throws IllegalArgumentException if at least one of the arguments is null
+     */
+    public List<UUID> cloneConfiguration(final UUID id, final int count) {
+        if (id == null) {
+            throw new IllegalArgumentException("id is null");
+        }
+        if (count < Constants.MIN_CLONES || count > Constants.MAX_CLONES) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    String.format("count must be between %s and %s", Constants.MIN_CLONES, Constants.MAX_CLONES)
+            );
+        }
+        assertConfigurationExists(id);
+        final List<UUID> cloneIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cloneIds.add(UUID.randomUUID());
+        }
+        configurationCloneRepository.cloneConfiguration(id, cloneIds, new Date());
+        return cloneIds;
+    }
+
+    /**
+     * Removes a changed configuration from all caches.
+     *
+     * @param id the id of the configuration that changed
+     */
+    private void invalidateConfiguration(final UUID id) {
+        configurationCache.invalidate(id);
+        configurationPayloadCache.invalidate(id);
+        statisticCache.invalidate(id);
+    }
+
+    /**
+     * @param id the id of the configuration
+     * @throws ResponseStatusException when configuration with the id does not exist
+     */
+    private void assertConfigurationExists(final UUID id) {
+        if (!configurationRepository.existsById(id)) {
+            throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND,
+                    String.format("There is no configuration with id %s.", id)
+            );
+        }
+    }
+
+    /**
+     * Creates the exception for a question that is not part of a configuration.
+     * Distinguishes a missing configuration from a missing question, which is only checked on this error path.
+     *
+     * @param id         the id of the configuration
+     * @param questionId the id of the question
+     * @return the exception to throw
+     */
+    private ResponseStatusException questionNotFound(final UUID id, final UUID questionId) {
+        if (!configurationRepository.existsById(id)) {
+            return new ResponseStatusException(
+                    HttpStatus.NOT_FOUND,
+                    String.format("There is no configuration with id %s.", id)
+            );
+        }
+        return new ResponseStatusException(
+                HttpStatus.NOT_FOUND,
+                String.format("Question with ID %s does not exist in configuration %s.", questionId, id)
+        );
+    }
+
+    /**
+     * Search a configuration by given id in the database, bypassing the configuration cache.
+     * Used by all methods that modify the configuration.
+     *
+     * @param id the id of the configuration searching for
+     * @return the found configuration
+     * @throws ResponseStatusException when configuration with the id does not exist
+     */
+    private Configuration findConfiguration(final UUID id) {
+        return configurationRepository
                 .findById(id)
                 .orElseThrow(() ->
                         new ResponseStatusException(
                                 HttpStatus.NOT_FOUND,
-                                String.format("Configuration with id %s not found", id)
+                                String.format("There is no configuration with id %s.", id)
                         )
                 );
-        Configuration cloneConfig = config.clone();
-        cloneConfig = configurationRepository.save(cloneConfig);
-        return cloneConfig.getId();
     }
 
     /**
-     * @param questionId    id of searched question
-     * @param configuration configuration in which the question is part of
-     * @return an optional of the question
-     * @throws ResponseStatusException  when question with the id in the given configuration does not exist
-     * @throws IllegalArgumentException if at least one of the arguments is null
+     * Loads a configuration with all questions and answers initialized, so that it can be cached and used outside
+     * of the current transaction. The whole graph is loaded with two queries, independent of the number of questions.
+     *
+     * @param id the id of the configuration searching for
+     * @return the found configuration
+     * @throws ResponseStatusException when configuration with the id does not exist
      */
-    private Optional<Question> getQuestionInConfiguration(
-            final UUID questionId,
-            final @Valid Configuration configuration
-    ) {
-        if (questionId == null || configuration == null) {
-            throw new IllegalArgumentException("questionId or configuration is null");
-        }
-        return configuration
-                .getQuestions()
-                .parallelStream()
-                .filter(filteredQuestion -> filteredQuestion.getId().equals(questionId))
-                .findAny();
+    private Configuration loadConfiguration(final UUID id) {
+        final Configuration configuration = configurationRepository
+                .findWithQuestionsById(id)
+                .orElseThrow(() ->
+                        new ResponseStatusException(
+                                HttpStatus.NOT_FOUND,
+                                String.format("There is no configuration with id %s.", id)
+                        )
+                );
+        if (!configuration.getQuestions().isEmpty()) {
+            questionRepository.fetchRightAnswers(configuration.getQuestions());
+        }
+        return configuration;
     }
 
     public ImageDTO addImage(final ImageDTO imageDTO) {
@@ -0,0 +1,243 @@
+package de.unistuttgart.finitequizbackend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This service keeps the game_result table partitioned by month of played_time, if finitequiz.partitions.enabled is
+ * set (off by default).
+ *
+ * On startup an unpartitioned game_result table is converted into a partitioned one. The conversion copies all game
+ * results while game_result is locked, so it should be enabled in a maintenance window. A daily job creates the
+ * partitions of the upcoming months and detaches partitions older than the retention period. Detached partitions are
+ * kept as regular tables, so they can be archived or dropped manually.
+ * Both run under an advisory lock, so only one instance changes the schema at a time. The conversion runs after the
+ * RoundResultMigration and before the statistics are counted.
+ *
+ * The tables and indexes that are needed without partitions are created by schema-postgres.sql.
+ */
+@Service
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class GameResultPartitionService implements ApplicationRunner {
+
+    /**
+     * Arbitrary key of the advisory lock, only used for the partitions of game_result.
+     */
+    static final long PARTITION_LOCK_KEY = 4_172_018L;
+
+    static final String PARTITION_PREFIX = "game_result_p";
+    static final String DEFAULT_PARTITION = "game_result_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    /**
+     * The start of the month after the newest detached partition, the epoch if no partition was detached.
+     */
+    private volatile Date retentionStart = new Date(0);
+
+    public GameResultPartitionService(
+        final JdbcTemplate jdbcTemplate,
+        final TransactionTemplate transactionTemplate,
+        @Value("${finitequiz.partitions.enabled:false}") final boolean enabled,
+        @Value("${finitequiz.partitions.months-ahead:3}") final int monthsAhead,
+        @Value("${finitequiz.partitions.retention-months:24}") final int retentionMonths
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("select pg_advisory_xact_lock(?)", PARTITION_LOCK_KEY);
+            if (!isPartitioned()) {
+                partitionGameResults();
+            }
+            createUpcomingPartitions();
+        });
+        updateRetentionStart();
+    }
+
+    /**
+     * Creates the partitions of the upcoming months and detaches partitions older than the retention period.
+     */
+    @Scheduled(cron = "${finitequiz.partitions.maintenance-cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                final Boolean locked = jdbcTemplate.queryForObject(
+                    "select pg_try_advisory_xact_lock(?)",
+                    Boolean.class,
+                    PARTITION_LOCK_KEY
+                );
+                if (!Boolean.TRUE.equals(locked)) {
+                    // another instance maintains the partitions right now
+                    return;
+                }
+                createUpcomingPartitions();
+                detachExpiredPartitions();
+            });
+        } catch (final RuntimeException exception) {
+            log.error("maintaining the partitions of game_result failed", exception);
+        }
+        // partitions may also have been detached by another instance
+        updateRetentionStart();
+    }
+
+    /**
+     * Statistics ignore game results played before this point in time, so that only the attached partitions are
+     * scanned. It is the start of the month after the newest detached partition, so results are only ignored once
+     * their partition was detached. Without partitions or detached partitions it is the epoch and no results are
+     * ignored.
+     *
+     * @return the earliest played time that is read by the statistics
+     */
+    public Date getRetentionStart() {
+        return retentionStart;
+    }
+
+    private void updateRetentionStart() {
+        try {
+            final String newestDetachedPartition = jdbcTemplate.queryForObject(
+                "select max(relname) from pg_class where relkind = 'r' and not relispartition and relname ~ ?",
+                String.class,
+                "^" + PARTITION_PREFIX + "[0-9]{4}_[0-9]{2}$"
+            );
+            if (newestDetachedPartition == null) {
+                return;
+            }
+            final LocalDate start = YearMonth
+                .parse(newestDetachedPartition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX)
+                .plusMonths(1)
+                .atDay(1);
+            retentionStart = Date.from(start.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (final RuntimeException exception) {
+            log.error("reading the detached partitions of game_result failed", exception);
+        }
+    }
+
+    private boolean isPartitioned() {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject(
+                "select relkind = 'p' from pg_class where oid = to_regclass('game_result')",
+                Boolean.class
+            )
+        );
+    }
+
+    /**
+     * Replaces the unpartitioned game_result table by a partitioned one with the same columns and copies the rows.
+     * Foreign keys referencing game_result are dropped, because they would have to contain played_time.
+     */
+    private void partitionGameResults() {
+        log.info("converting game_result into a partitioned table");
+        jdbcTemplate.execute("alter table game_result rename to game_result_unpartitioned");
+        final List<String> dropForeignKeys = jdbcTemplate.queryForList(
+            "select format('alter table %s drop constraint %I', conrelid::regclass, conname) from pg_constraint " +
+            "where contype = 'f' and confrelid = 'game_result_unpartitioned'::regclass",
+            String.class
+        );
+        dropForeignKeys.forEach(jdbcTemplate::execute);
+        jdbcTemplate.execute(
+            "create table game_result (like game_result_unpartitioned including defaults) partition by range (played_time)"
+        );
+        jdbcTemplate.execute("update game_result_unpartitioned set played_time = now() where played_time is null");
+        jdbcTemplate.execute("alter table game_result alter column played_time set not null");
+        jdbcTemplate.execute("alter table game_result add primary key (id, played_time)");
+        jdbcTemplate.execute("create table " + DEFAULT_PARTITION + " partition of game_result default");
+
+        final LocalDateTime oldestPlayedTime = jdbcTemplate.queryForObject(
+            "select min(played_time) from game_result_unpartitioned",
+            LocalDateTime.class
+        );
+        if (oldestPlayedTime != null) {
+            createPartitions(YearMonth.from(oldestPlayedTime), YearMonth.now());
+        }
+        createUpcomingPartitions();
+
+        jdbcTemplate.execute(
+            "insert into game_result_idempotency_key (player_id, idempotency_key, game_result_id) " +
+            "select player_id, idempotency_key, id from game_result_unpartitioned " +
+            "where idempotency_key is not null on conflict do nothing"
+        );
+        final int rows = jdbcTemplate.update("insert into game_result select * from game_result_unpartitioned");
+        jdbcTemplate.execute("drop table game_result_unpartitioned");
+        // the indexes of schema-postgres.sql were dropped with the unpartitioned table
+        jdbcTemplate.execute(
+            "create index game_result_configuration_played_time_idx on game_result (configuration_asuuid, played_time)"
+        );
+        jdbcTemplate.execute(
+            "create index game_result_player_idempotency_key_idx on game_result (player_id, idempotency_key)"
+        );
+        log.info("moved {} game results into the partitioned game_result table", rows);
+    }
+
+    private void createUpcomingPartitions() {
+        final YearMonth currentMonth = YearMonth.now();
+        createPartitions(currentMonth, currentMonth.plusMonths(monthsAhead));
+    }
+
+    private void createPartitions(final YearMonth from, final YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            jdbcTemplate.execute(
+                String.format(
+                    "create table if not exists %s partition of game_result for values from ('%s') to ('%s')",
+                    partitionName(month),
+                    month.atDay(1),
+                    month.plusMonths(1).atDay(1)
+                )
+            );
+        }
+    }
+
+    private void detachExpiredPartitions() {
+        final String oldestRetainedPartition = partitionName(YearMonth.now().minusMonths(retentionMonths));
+        final List<String> partitions = jdbcTemplate.queryForList(
+            "select child.relname from pg_inherits join pg_class child on child.oid = pg_inherits.inhrelid " +
+            "where pg_inherits.inhparent = 'game_result'::regclass and child.relname like ?",
+            String.class,
+            PARTITION_PREFIX + "%"
+        );
+        for (final String partition : partitions) {
+            // the names sort by month, because the suffix is yyyy_MM
+            if (partition.compareTo(oldestRetainedPartition) < 0) {
+                jdbcTemplate.execute("alter table game_result detach partition " + partition);
+                log.info("detached partition {} of game_result", partition);
+            }
+        }
+    }
+
+    private static String partitionName(final YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -1,17 +1,29 @@
 package de.unistuttgart.finitequizbackend.service;
 
-import de.unistuttgart.finitequizbackend.clients.ResultClient;
+import de.unistuttgart.finitequizbackend.Constants;
+import de.unistuttgart.finitequizbackend.cache.GameResultIdempotencyIndex;
+import de.unistuttgart.finitequizbackend.cache.StatisticCache;
 import de.unistuttgart.finitequizbackend.data.*;
+import de.unistuttgart.finitequizbackend.repositories.GameResultIdempotencyKeyRepository;
 import de.unistuttgart.finitequizbackend.repositories.GameResultRepository;
+import de.unistuttgart.finitequizbackend.repositories.OverworldResultOutboxRepository;
 import de.unistuttgart.finitequizbackend.repositories.QuestionRepository;
-import feign.FeignException;
+import de.unistuttgart.finitequizbackend.repositories.QuestionStatisticRepository;
+import de.unistuttgart.finitequizbackend.repositories.TimeSpentHistogramRepository;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
@@ -25,52 +37,107 @@ import org.springframework.web.server.ResponseStatusException;
 public class GameResultService {
 
     @Autowired
-    ResultClient resultClient;
+    OverworldResultOutboxRepository outboxRepository;
+
+    @Autowired
+    GameResultWriteBehindQueue writeBehindQueue;
 
     @Autowired
     GameResultRepository gameResultRepository;
 
+    @Autowired
+    GameResultIdempotencyKeyRepository idempotencyKeyRepository;
+
     @Autowired
     QuestionRepository questionRepository;
 
-    private static int hundredScoreCount = 0;
+    @Autowired
+    QuestionStatisticRepository questionStatisticRepository;
+
+    @Autowired
+    TimeSpentHistogramRepository timeSpentHistogramRepository;
+
+    @Autowired
+    RewardLedgerService rewardLedgerService;
+
+    @Autowired
+    StatisticCache statisticCache;
 
+    @Autowired
+    GameResultIdempotencyIndex idempotencyIndex;
 
     /**
      * Cast list of question texts to a List of Questions
      *
      * @param roundResultDTOs list of RoundResults
      * @return a list of questions
+     * @throws ResponseStatusException when at least one of the questions does not exist
      */
     public List<RoundResult> castQuestionList(final List<RoundResultDTO> roundResultDTOs) {
-        final List<RoundResult> questionList = new ArrayList<>();
+        return castQuestionList(roundResultDTOs, findQuestions(roundResultDTOs));
+    }
+
+    /**
+     * Cast list of question texts to a List of Questions
+     *
+     * @param roundResultDTOs list of RoundResults
+     * @param questions       the questions of the round results by id, e.g. found with findQuestions
+     * @return a list of questions
+     */
+    private List<RoundResult> castQuestionList(
+        final List<RoundResultDTO> roundResultDTOs,
+        final Map<UUID, Question> questions
+    ) {
+        final List<RoundResult> questionList = new ArrayList<>(roundResultDTOs.size());
         for (final RoundResultDTO roundResultDTO : roundResultDTOs) {
-            final Optional<Question> questionToAdd = questionRepository.findById(roundResultDTO.getQuestionUUId());
-            if (questionToAdd.isEmpty()) {
-                throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND,
-                    String.format("There is no question with uuid %s.", roundResultDTO.getQuestionUUId())
-                );
-            } else {
-                final RoundResult roundResult = new RoundResult(questionToAdd.get(), roundResultDTO.getAnswer());
-                questionList.add(roundResult);
-            }
+            questionList.add(new RoundResult(questions.get(roundResultDTO.getQuestionUUId()), roundResultDTO.getAnswer()));
         }
         return questionList;
     }
 
     /**
-     * Casts a GameResultDTO to GameResult and saves it in the Database
+     * Finds the questions of all given round results with one query.
+     *
+     * @param roundResultDTOs list of RoundResults
+     * @return the found questions by id
+     * @throws ResponseStatusException when at least one of the questions does not exist, listing all unknown ids
+     */
+    private Map<UUID, Question> findQuestions(final List<RoundResultDTO> roundResultDTOs) {
+        final Set<UUID> questionIds = new HashSet<>();
+        roundResultDTOs.forEach(roundResultDTO -> questionIds.add(roundResultDTO.getQuestionUUId()));
+        final Map<UUID, Question> questions = new HashMap<>();
+        questionRepository.findAllById(questionIds).forEach(question -> questions.put(question.getId(), question));
+        if (questions.size() < questionIds.size()) {
+            questionIds.removeAll(questions.keySet());
+            throw new ResponseStatusException(
+                HttpStatus.NOT_FOUND,
+                String.format("There are no questions with uuids %s.", questionIds)
+            );
+        }
+        return questions;
+    }
+
+    /**
+     * Casts a GameResultDTO to GameResult and saves it in the Database.
+     * The result for the overworld-backend is saved in the outbox in the same transaction and submitted later, the
+     * question statistics and the time spent histogram are updated in the same transaction.
+     * If the write-behind queue is enabled, both are queued and written in the next batch, except for perfect rounds:
+     * their rewards depend on the reward ledger, so they are written in the same transaction as the ledger update.
+     * The response to a submission with an idempotency key is remembered once the result is persisted.
      *
      * @param gameResultDTO extern gameResultDTO
      * @param userId id of the user
      * @param accessToken accessToken of the user
+     * @param idempotencyKey key of the submission to detect retries, null if the client sent none
+     * @throws ResponseStatusException  when a question does not exist or the write-behind queue is full
+     * @throws DuplicateKeyException when a result with the same idempotency key was already saved
      * @throws IllegalArgumentException if at least one of the arguments is null
      */
     public void saveGameResult(
         final @Valid GameResultDTO gameResultDTO,
         final String userId,
-        final String accessToken
+        final String accessToken,
+        @Nullable final String idempotencyKey
     ) {
         if (gameResultDTO == null || userId == null || accessToken == null) {
             throw new IllegalArgumentException("gameResultDTO or userId is null");
@@ -80,7 +147,7 @@ public class GameResultService {
             gameResultDTO.getQuestionCount()
         );
 
-        final int rewards = calculateRewards(resultScore);
+        final int rewards = calculateRewards(resultScore, userId, gameResultDTO.getConfigurationAsUUID());
         gameResultDTO.setScore(resultScore);
         gameResultDTO.setRewards(rewards);
 
@@ -90,34 +157,75 @@ public class GameResultService {
             userId,
                 rewards
         );
-        try {
-            resultClient.submit(accessToken, resultDTO);
-            final List<RoundResult> correctQuestions =
-                this.castQuestionList(gameResultDTO.getCorrectAnsweredQuestions());
-            final List<RoundResult> wrongQuestions = this.castQuestionList(gameResultDTO.getWrongAnsweredQuestions());
-            final GameResult result = new @Valid GameResult(
-                gameResultDTO.getQuestionCount(),
-                gameResultDTO.getScore(),
-                gameResultDTO.getTimeSpent(),
-                rewards,
-                correctQuestions,
-                wrongQuestions,
-                gameResultDTO.getConfigurationAsUUID(),
-                userId
+        // resolve the questions of both lists at once
+        final List<RoundResultDTO> roundResultDTOs = new ArrayList<>(gameResultDTO.getCorrectAnsweredQuestions());
+        roundResultDTOs.addAll(gameResultDTO.getWrongAnsweredQuestions());
+        final Map<UUID, Question> questions = findQuestions(roundResultDTOs);
+        final List<RoundResult> correctQuestions =
+            this.castQuestionList(gameResultDTO.getCorrectAnsweredQuestions(), questions);
+        final List<RoundResult> wrongQuestions =
+            this.castQuestionList(gameResultDTO.getWrongAnsweredQuestions(), questions);
+        final GameResult result = new @Valid GameResult(
+            gameResultDTO.getQuestionCount(),
+            gameResultDTO.getScore(),
+            gameResultDTO.getTimeSpent(),
+            rewards,
+            correctQuestions,
+            wrongQuestions,
+            gameResultDTO.getConfigurationAsUUID(),
+            userId
+        );
+        result.setIdempotencyKey(idempotencyKey);
+        // the result is submitted to the overworld-backend in the background by the OverworldResultDispatcher
+        final OverworldResultOutboxEntry outboxEntry = new OverworldResultOutboxEntry(resultDTO, accessToken, new Date());
+        // perfect rounds are counted in the reward ledger, which must be committed together with the result
+        if (writeBehindQueue.isEnabled() && resultScore != Constants.MAX_SCORE) {
+            writeBehindQueue.enqueue(
+                result,
+                outboxEntry,
+                () -> {
+                    if (idempotencyKey != null) {
+                        idempotencyIndex.put(userId, idempotencyKey, gameResultDTO);
+                    }
+                }
             );
-            gameResultRepository.save(result);
-        } catch (final FeignException.BadGateway badGateway) {
-            final String warning =
-                "The Overworld backend is currently not available. The result was NOT saved. Please try again later";
-            log.error(warning + badGateway);
-            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, warning);
-        } catch (final FeignException.NotFound notFound) {
-            final String warning = "The result could not be saved. Unknown User";
-            log.error(warning + notFound);
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, warning);
+            return;
+        }
+        gameResultRepository.save(result);
+        idempotencyKeyRepository.claimKeys(List.of(result));
+        questionStatisticRepository.countRoundResults(List.of(result));
+        timeSpentHistogramRepository.countTimeSpent(List.of(result));
+        outboxRepository.save(outboxEntry);
+        statisticCache.markStaleAfterCommit(result.getConfigurationAsUUID());
+        if (idempotencyKey != null) {
+            idempotencyIndex.putAfterCommit(userId, idempotencyKey, gameResultDTO);
         }
     }
 
+    /**
+     * Search the game result that was saved with the given idempotency key
+     *
+     * @param userId         id of the user
+     * @param idempotencyKey key of the submission
+     * @return the found game result
+     * @throws ResponseStatusException  when there is no game result with the key
+     * @throws IllegalArgumentException if at least one of the arguments is null
+     */
+    @Transactional(readOnly = true)
+    public GameResult getGameResult(final String userId, final String idempotencyKey) {
+        if (userId == null || idempotencyKey == null) {
+            throw new IllegalArgumentException("userId or idempotencyKey is null");
+        }
+        return gameResultRepository
+            .findByPlayerIdAndIdempotencyKey(userId, idempotencyKey)
+            .orElseThrow(() ->
+                new ResponseStatusException(
+                    HttpStatus.NOT_FOUND,
+                    String.format("There is no game result with idempotency key %s.", idempotencyKey)
+                )
+            );
+    }
+
     /**
      * calculates the score a player made
      *
@@ -143,23 +251,24 @@ public class GameResultService {
      * Calculates the rewards for a finite quiz round based on the score achieved in the current round.
      *
      * Reward logic:
-     * - First three rounds with a score of 100%: 10 coins per round.
+     * - First three rounds of a player in a configuration with a score of 100%: 10 coins per round.
      * - After the third round, if the score is 100%: 5 coins per round.
      * - If the score is less than 100%, the reward is calculated as: score / 10.
      *
      * @param resultScore the score achieved in the game (must be >= 0)
+     * @param userId id of the user
+     * @param configurationId id of the played configuration
      * @return the number of rewards as an integer
      * @throws IllegalArgumentException if resultScore is less than 0
      */
-    private int calculateRewards(final int resultScore) {
+    private int calculateRewards(final int resultScore, final String userId, final UUID configurationId) {
         if (resultScore < 0) {
             throw new IllegalArgumentException("Result score cannot be less than zero");
         }
-        if (resultScore == 100 && hundredScoreCount < 3) {
-            hundredScoreCount++;
-            return 10;
-        } else if (resultScore == 100 && hundredScoreCount >= 3) {
-            return 5;
+        if (resultScore == Constants.MAX_SCORE) {
+            return rewardLedgerService.countPerfectRound(userId, configurationId)
+                ? Constants.PERFECT_SCORE_REWARDS
+                : Constants.CAPPED_PERFECT_SCORE_REWARDS;
         }
         return resultScore/10;
     }
@@ -0,0 +1,372 @@
+package de.unistuttgart.finitequizbackend.service;
+
+import de.unistuttgart.finitequizbackend.cache.StatisticCache;
+import de.unistuttgart.finitequizbackend.data.GameResult;
+import de.unistuttgart.finitequizbackend.data.OverworldResultOutboxEntry;
+import de.unistuttgart.finitequizbackend.repositories.GameResultIdempotencyKeyRepository;
+import de.unistuttgart.finitequizbackend.repositories.GameResultRepository;
+import de.unistuttgart.finitequizbackend.repositories.OverworldResultOutboxRepository;
+import de.unistuttgart.finitequizbackend.repositories.QuestionStatisticRepository;
+import de.unistuttgart.finitequizbackend.repositories.TimeSpentHistogramRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * This queue persists game results in the background (write-behind), so that many results submitted at the same
+ * time are written in a few transactions with batched inserts instead of one transaction per request.
+ *
+ * Results are flushed as soon as a batch is full or the flush interval since the first queued result elapsed.
+ * When the queue is full, new results are rejected with 503, so the clients retry later. The queue is flushed on
+ * shutdown; results that are queued when the process crashes are lost.
+ *
+ * Results were already acknowledged when they are written, so only invalid and duplicate results are dropped. Batches
+ * that fail for other reasons, e.g. because the database is not reachable, are retried with exponential backoff until
+ * they are written or the application is stopped.
+ *
+ * The queue is only used if finitequiz.results.write-behind.enabled is set.
+ */
+@Component
+@Slf4j
+public class GameResultWriteBehindQueue {
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final BlockingQueue<PendingGameResult> queue;
+    private final GameResultRepository gameResultRepository;
+    private final GameResultIdempotencyKeyRepository idempotencyKeyRepository;
+    private final OverworldResultOutboxRepository outboxRepository;
+    private final QuestionStatisticRepository questionStatisticRepository;
+    private final TimeSpentHistogramRepository timeSpentHistogramRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StatisticCache statisticCache;
+
+    private final Counter writtenCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Counter duplicateCounter;
+    private final Counter retriedCounter;
+    private final Timer flushTimer;
+
+    /**
+     * Held by enqueue while it checks running and queues a result, and by shutdown while it stops the queue, so that no
+     * result is queued after the flusher drained the queue for the last time.
+     */
+    private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread flusher;
+
+    public GameResultWriteBehindQueue(
+        @Value("${finitequiz.results.write-behind.enabled:false}") final boolean enabled,
+        @Value("${finitequiz.results.write-behind.queue-capacity:10000}") final int queueCapacity,
+        @Value("${finitequiz.results.write-behind.batch-size:200}") final int batchSize,
+        @Value("${finitequiz.results.write-behind.flush-interval:200ms}") final Duration flushInterval,
+        @Value("${finitequiz.results.write-behind.initial-backoff:100ms}") final Duration initialBackoff,
+        @Value("${finitequiz.results.write-behind.max-backoff:10s}") final Duration maxBackoff,
+        final GameResultRepository gameResultRepository,
+        final GameResultIdempotencyKeyRepository idempotencyKeyRepository,
+        final OverworldResultOutboxRepository outboxRepository,
+        final QuestionStatisticRepository questionStatisticRepository,
+        final TimeSpentHistogramRepository timeSpentHistogramRepository,
+        final TransactionTemplate transactionTemplate,
+        final StatisticCache statisticCache,
+        final MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.gameResultRepository = gameResultRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.outboxRepository = outboxRepository;
+        this.questionStatisticRepository = questionStatisticRepository;
+        this.timeSpentHistogramRepository = timeSpentHistogramRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.statisticCache = statisticCache;
+
+        Gauge
+            .builder("finitequiz.results.write-behind.queue", queue, BlockingQueue::size)
+            .description("Number of game results waiting to be written")
+            .register(meterRegistry);
+        this.writtenCounter = createCounter("written", meterRegistry);
+        this.rejectedCounter = createCounter("rejected", meterRegistry);
+        this.failedCounter = createCounter("failed", meterRegistry);
+        this.duplicateCounter = createCounter("duplicate", meterRegistry);
+        this.retriedCounter = createCounter("retried", meterRegistry);
+        this.flushTimer =
+            Timer
+                .builder("finitequiz.results.write-behind.flush")
+                .description("Time to write one batch of game results")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::run, "game-result-write-behind");
+        flusher.start();
+    }
+
+    /**
+     * @return true if game results should be written with this queue
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a validated game result and its outbox entry, they are written together in the next batch.
+     *
+     * @param gameResult  the game result to save
+     * @param outboxEntry the outbox entry of the game result
+     * @param onWritten   called after the game result was written, not called if it is dropped or fails
+     * @throws ResponseStatusException when the queue is full or shutting down
+     */
+    public void enqueue(
+        final GameResult gameResult,
+        final OverworldResultOutboxEntry outboxEntry,
+        final Runnable onWritten
+    ) {
+        final boolean queued;
+        runningLock.readLock().lock();
+        try {
+            queued = running && queue.offer(new PendingGameResult(gameResult, outboxEntry, onWritten));
+        } finally {
+            runningLock.readLock().unlock();
+        }
+        if (!queued) {
+            rejectedCounter.increment();
+            throw new ResponseStatusException(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many results are submitted at the moment. Please try again later"
+            );
+        }
+    }
+
+    private void run() {
+        final List<PendingGameResult> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (final InterruptedException interruptedException) {
+                // the shutdown timed out, the remaining results are not written anymore
+                if (!batch.isEmpty()) {
+                    logLostResults(batch.size());
+                }
+                return;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Waits for the first result and collects results until the batch is full or the flush interval elapsed.
+     */
+    private void collectBatch(final List<PendingGameResult> batch) throws InterruptedException {
+        final PendingGameResult first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        final long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            final long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            final PendingGameResult next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction. If the batch contains an invalid or duplicate result, its results are written
+     * one by one, so that this result does not discard the whole batch. Results whose idempotency key was already saved
+     * and invalid results are dropped, all other failures are retried.
+     */
+    private void flush(final List<PendingGameResult> batch) {
+        try {
+            flushTimer.record(() -> writeWithRetries(batch));
+            writtenCounter.increment(batch.size());
+            return;
+        } catch (final InterruptedRetryException interruptedRetryException) {
+            logLostResults(batch.size());
+            return;
+        } catch (final RuntimeException batchException) {
+            log.warn(
+                "batch of {} game results could not be written, writing them one by one",
+                batch.size(),
+                batchException
+            );
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            final PendingGameResult pendingGameResult = batch.get(i);
+            try {
+                writeWithRetries(List.of(pendingGameResult));
+                writtenCounter.increment();
+            } catch (final InterruptedRetryException interruptedRetryException) {
+                logLostResults(batch.size() - i);
+                return;
+            } catch (final DuplicateKeyException duplicateException) {
+                // a retried submission whose idempotency key was already saved, e.g. by another instance
+                log.info(
+                    "game result of user {} with idempotency key {} was already saved",
+                    pendingGameResult.gameResult().getPlayerId(),
+                    pendingGameResult.gameResult().getIdempotencyKey()
+                );
+                duplicateCounter.increment();
+            } catch (final RuntimeException exception) {
+                log.error(
+                    "game result of user {} is invalid and could not be written",
+                    pendingGameResult.gameResult().getPlayerId(),
+                    exception
+                );
+                failedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * Writes the results, retrying with exponential backoff until they are written or they are invalid.
+     *
+     * @throws RuntimeException        if a result is invalid or a duplicate
+     * @throws InterruptedRetryException if the shutdown interrupted the retries
+     */
+    private void writeWithRetries(final List<PendingGameResult> results) {
+        Duration backoff = initialBackoff;
+        while (true) {
+            try {
+                write(results);
+                return;
+            } catch (final RuntimeException exception) {
+                if (isInvalid(exception)) {
+                    throw exception;
+                }
+                log.warn("{} game results could not be written, retrying in {}", results.size(), backoff, exception);
+                retriedCounter.increment(results.size());
+            }
+            try {
+                Thread.sleep(backoff.toMillis());
+            } catch (final InterruptedException interruptedException) {
+                throw new InterruptedRetryException();
+            }
+            backoff = backoff.multipliedBy(2).compareTo(maxBackoff) > 0 ? maxBackoff : backoff.multipliedBy(2);
+        }
+    }
+
+    /**
+     * @return true if the exception was caused by an invalid or duplicate result, which fails again when retried
+     */
+    private static boolean isInvalid(final Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (
+                cause instanceof DataIntegrityViolationException ||
+                cause instanceof ConstraintViolationException ||
+                cause instanceof org.hibernate.exception.ConstraintViolationException
+            ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void logLostResults(final int lostResults) {
+        log.error("{} game results could not be written before shutdown", lostResults);
+        failedCounter.increment(lostResults);
+    }
+
+    private void write(final List<PendingGameResult> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            final List<GameResult> gameResults = gameResultRepository.saveAll(
+                batch.stream().map(PendingGameResult::gameResult).toList()
+            );
+            idempotencyKeyRepository.claimKeys(gameResults);
+            questionStatisticRepository.countRoundResults(gameResults);
+            timeSpentHistogramRepository.countTimeSpent(gameResults);
+            outboxRepository.saveAll(batch.stream().map(PendingGameResult::outboxEntry).toList());
+        });
+        batch
+            .stream()
+            .map(pendingGameResult -> pendingGameResult.gameResult().getConfigurationAsUUID())
+            .distinct()
+            .forEach(statisticCache::markStale);
+        batch.forEach(pendingGameResult -> pendingGameResult.onWritten().run());
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        // the flusher writes the remaining results and stops within one flush interval
+        runningLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            runningLock.writeLock().unlock();
+        }
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+        if (flusher.isAlive()) {
+            // still retrying a batch, e.g. because the database is not reachable
+            flusher.interrupt();
+            flusher.join(TimeUnit.SECONDS.toMillis(1));
+        }
+        if (!queue.isEmpty()) {
+            logLostResults(queue.size());
+        }
+    }
+
+    private static Counter createCounter(final String result, final MeterRegistry meterRegistry) {
+        return Counter
+            .builder("finitequiz.results.write-behind.results")
+            .description("Number of game results handled by the write-behind queue")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Thrown when the retries of a batch were interrupted by the shutdown.
+     */
+    private static class InterruptedRetryException extends RuntimeException {}
+
+    private record PendingGameResult(
+        GameResult gameResult,
+        OverworldResultOutboxEntry outboxEntry,
+        Runnable onWritten
+    ) {}
+}
@@ -0,0 +1,219 @@
+package de.unistuttgart.finitequizbackend.service;
+
+import de.unistuttgart.finitequizbackend.clients.ClientGuard;
+import de.unistuttgart.finitequizbackend.clients.ResultClient;
+import de.unistuttgart.finitequizbackend.data.OverworldResultOutboxEntry;
+import de.unistuttgart.finitequizbackend.errorhandling.CallNotPermittedException;
+import de.unistuttgart.finitequizbackend.repositories.OverworldResultOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This service delivers the results in the outbox to the overworld-backend in the background.
+ *
+ * Failed deliveries are retried with exponential backoff. Entries that were rejected by the overworld-backend (e.g.
+ * unknown user or expired access token) or failed too often are dead-lettered.
+ * The number of pending and dead entries is published as "finitequiz.outbox.depth", the time between saving and
+ * delivering a result as "finitequiz.outbox.delivery.lag".
+ */
+@Service
+@Slf4j
+public class OverworldResultDispatcher {
+
+    private final ResultClient resultClient;
+    private final ClientGuard resultClientGuard;
+    private final OverworldResultOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration leaseDuration;
+
+    private final AtomicLong pendingEntries = new AtomicLong();
+    private final AtomicLong deadEntries = new AtomicLong();
+    private final Timer deliveryLag;
+    private final Counter deliveredCounter;
+    private final Counter retriedCounter;
+    private final Counter deadLetteredCounter;
+
+    public OverworldResultDispatcher(
+        final ResultClient resultClient,
+        @Qualifier("resultClientGuard") final ClientGuard resultClientGuard,
+        final OverworldResultOutboxRepository outboxRepository,
+        final TransactionTemplate transactionTemplate,
+        @Value("${finitequiz.outbox.batch-size:50}") final int batchSize,
+        @Value("${finitequiz.outbox.max-attempts:10}") final int maxAttempts,
+        @Value("${finitequiz.outbox.initial-backoff:1s}") final Duration initialBackoff,
+        @Value("${finitequiz.outbox.max-backoff:10m}") final Duration maxBackoff,
+        @Value("${finitequiz.outbox.lease-duration:5m}") final Duration leaseDuration,
+        final MeterRegistry meterRegistry
+    ) {
+        this.resultClient = resultClient;
+        this.resultClientGuard = resultClientGuard;
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.leaseDuration = leaseDuration;
+
+        Gauge
+            .builder("finitequiz.outbox.depth", pendingEntries, AtomicLong::get)
+            .description("Number of results in the outbox")
+            .tag("status", "pending")
+            .register(meterRegistry);
+        Gauge
+            .builder("finitequiz.outbox.depth", deadEntries, AtomicLong::get)
+            .description("Number of results in the outbox")
+            .tag("status", "dead")
+            .register(meterRegistry);
+        this.deliveryLag =
+            Timer
+                .builder("finitequiz.outbox.delivery.lag")
+                .description("Time between saving a result and delivering it to the overworld-backend")
+                .register(meterRegistry);
+        this.deliveredCounter = createCounter("delivered", meterRegistry);
+        this.retriedCounter = createCounter("retried", meterRegistry);
+        this.deadLetteredCounter = createCounter("dead", meterRegistry);
+    }
+
+    @Scheduled(
+        fixedDelayString = "${finitequiz.outbox.dispatch-interval-ms:1000}",
+        initialDelayString = "${finitequiz.outbox.initial-delay-ms:1000}"
+    )
+    public void dispatchScheduled() {
+        try {
+            int dispatched;
+            do {
+                dispatched = dispatch();
+            } while (dispatched == batchSize);
+        } catch (final RuntimeException exception) {
+            log.error("dispatching the outbox failed", exception);
+        }
+        pendingEntries.set(outboxRepository.countByStatus(OverworldResultOutboxEntry.Status.PENDING));
+        deadEntries.set(outboxRepository.countByStatus(OverworldResultOutboxEntry.Status.DEAD));
+    }
+
+    /**
+     * Delivers one batch of due outbox entries.
+     * The batch is claimed in a short transaction, which leases the entries by postponing their next attempt for the
+     * lease duration, so other instances skip them. The entries are delivered outside of a transaction, and each
+     * outcome is written in its own small transaction. Entries whose lease expires before they are delivered may be
+     * delivered by another instance again, like entries whose outcome could not be written.
+     * The batch is stopped when the circuit of the result client opens, the leases of the remaining entries are
+     * released without counting an attempt.
+     *
+     * @return the number of entries that were processed
+     */
+    public int dispatch() {
+        final Date now = new Date();
+        final List<OverworldResultOutboxEntry> entries = transactionTemplate.execute(status -> {
+            final List<OverworldResultOutboxEntry> dueEntries = outboxRepository.lockDueEntries(now, batchSize);
+            if (!dueEntries.isEmpty()) {
+                outboxRepository.scheduleEntries(
+                    getIds(dueEntries),
+                    new Date(now.getTime() + leaseDuration.toMillis())
+                );
+            }
+            return dueEntries;
+        });
+        if (entries == null) {
+            return 0;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            if (!deliver(entries.get(i))) {
+                final List<UUID> remainingIds = getIds(entries.subList(i, entries.size()));
+                transactionTemplate.executeWithoutResult(status ->
+                    outboxRepository.scheduleEntries(remainingIds, new Date())
+                );
+                return i;
+            }
+        }
+        return entries.size();
+    }
+
+    /**
+     * @return false if the entry was not delivered because the circuit of the result client is open
+     */
+    private boolean deliver(final OverworldResultOutboxEntry entry) {
+        if (entry.getAccessToken() == null) {
+            // the token was encrypted with another key, the entry stays leased so that an instance with that key
+            // can deliver it when the lease expires
+            log.warn("result {} could not be delivered, its access token could not be decrypted", entry.getId());
+            return true;
+        }
+        try {
+            resultClientGuard.run(() -> resultClient.submit(entry.getAccessToken(), entry.toOverworldResultDTO()));
+        } catch (final CallNotPermittedException callNotPermittedException) {
+            // not the fault of the entry, it is delivered when the circuit closes again
+            return false;
+        } catch (final RuntimeException exception) {
+            final int attempts = entry.getAttempts() + 1;
+            // client errors are not retried, because the overworld-backend will reject the result again
+            if (!ClientGuard.isBackendFailure(exception) || attempts >= maxAttempts) {
+                log.error("result {} could not be delivered to the overworld-backend: {}", entry.getId(), exception.toString());
+                deadLetter(entry, exception.toString());
+            } else {
+                log.warn("result {} could not be delivered, retrying: {}", entry.getId(), exception.toString());
+                final Date nextAttemptAt = new Date(System.currentTimeMillis() + backoff(attempts).toMillis());
+                transactionTemplate.executeWithoutResult(status ->
+                    outboxRepository.retryEntry(entry.getId(), abbreviate(exception.toString()), nextAttemptAt)
+                );
+                retriedCounter.increment();
+            }
+            return true;
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteDeliveredEntry(entry.getId()));
+        deliveredCounter.increment();
+        deliveryLag.record(System.currentTimeMillis() - entry.getCreatedAt().getTime(), TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    private void deadLetter(final OverworldResultOutboxEntry entry, final String error) {
+        transactionTemplate.executeWithoutResult(status ->
+            outboxRepository.deadLetterEntry(entry.getId(), abbreviate(error), OverworldResultOutboxEntry.Status.DEAD)
+        );
+        deadLetteredCounter.increment();
+    }
+
+    /**
+     * @param attempts the number of failed attempts
+     * @return the time to wait before the next attempt
+     */
+    private Duration backoff(final int attempts) {
+        final Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static List<UUID> getIds(final List<OverworldResultOutboxEntry> entries) {
+        return entries.stream().map(OverworldResultOutboxEntry::getId).toList();
+    }
+
+    private static String abbreviate(final String error) {
+        return error.length() <= 1024 ? error : error.substring(0, 1024);
+    }
+
+    private static Counter createCounter(final String result, final MeterRegistry meterRegistry) {
+        return Counter
+            .builder("finitequiz.outbox.deliveries")
+            .description("Number of delivery attempts of outbox entries")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,148 @@
+package de.unistuttgart.finitequizbackend.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Counts the answers of the questions of one configuration and selects the most problematic questions.
+ *
+ * Each question gets an index, the answers are counted in primitive arrays, so counting a round result is one hash
+ * lookup. Round results of questions that are not part of the configuration are ignored.
+ *
+ * The questions are ordered by the percentage of wrong answers (descending), then by the number of wrong answers
+ * (descending), then by the order in which they were passed. Questions that were never attempted have no percentage
+ * and are ordered after all attempted questions.
+ */
+public class QuestionAnswerCounter {
+
+    private final Map<UUID, Integer> indexes;
+    private final int[] attempts;
+    private final int[] correctAnswers;
+    private final int[] wrongAnswers;
+
+    /**
+     * Orders the indexes from the most to the least problematic question.
+     */
+    private final Comparator<Integer> problematicFirst = this::compareProblematicFirst;
+
+    /**
+     * @param questionIds the ids of the questions of the configuration, duplicates share one counter
+     */
+    public QuestionAnswerCounter(final List<UUID> questionIds) {
+        this.indexes = new HashMap<>(Math.max(16, questionIds.size() * 2));
+        for (final UUID questionId : questionIds) {
+            indexes.putIfAbsent(questionId, indexes.size());
+        }
+        this.attempts = new int[indexes.size()];
+        this.correctAnswers = new int[indexes.size()];
+        this.wrongAnswers = new int[indexes.size()];
+    }
+
+    /**
+     * Counts one answer of a question.
+     *
+     * @param questionId the id of the answered question
+     * @param correct    whether the answer was correct
+     */
+    public void count(final UUID questionId, final boolean correct) {
+        final Integer index = indexes.get(questionId);
+        if (index == null) {
+            return;
+        }
+        attempts[index]++;
+        if (correct) {
+            correctAnswers[index]++;
+        } else {
+            wrongAnswers[index]++;
+        }
+    }
+
+    /**
+     * Adds already counted answers of a question.
+     *
+     * @param questionId     the id of the answered question
+     * @param correctAnswers the number of correct answers
+     * @param wrongAnswers   the number of wrong answers
+     */
+    public void add(final UUID questionId, final int correctAnswers, final int wrongAnswers) {
+        final Integer index = indexes.get(questionId);
+        if (index == null) {
+            return;
+        }
+        this.attempts[index] += correctAnswers + wrongAnswers;
+        this.correctAnswers[index] += correctAnswers;
+        this.wrongAnswers[index] += wrongAnswers;
+    }
+
+    /**
+     * Selects the most problematic questions with a bounded heap, without sorting all questions.
+     *
+     * @param limit the maximal number of selected questions
+     * @return the indexes of the selected questions, the most problematic first
+     */
+    public List<Integer> selectMostProblematic(final int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // the least problematic of the selected questions is on top of the heap and replaced by more problematic ones
+        final PriorityQueue<Integer> selected = new PriorityQueue<>(limit + 1, problematicFirst.reversed());
+        for (int index = 0; index < attempts.length; index++) {
+            if (selected.size() < limit) {
+                selected.add(index);
+            } else if (problematicFirst.compare(index, selected.peek()) < 0) {
+                selected.poll();
+                selected.add(index);
+            }
+        }
+        final List<Integer> mostProblematic = new ArrayList<>(selected);
+        mostProblematic.sort(problematicFirst);
+        return mostProblematic;
+    }
+
+    /**
+     * @param questionId the id of a question
+     * @return the index of the question, -1 if it is not part of the configuration
+     */
+    public int indexOf(final UUID questionId) {
+        return indexes.getOrDefault(questionId, -1);
+    }
+
+    public int getAttempts(final int index) {
+        return attempts[index];
+    }
+
+    public int getCorrectAnswers(final int index) {
+        return correctAnswers[index];
+    }
+
+    public int getWrongAnswers(final int index) {
+        return wrongAnswers[index];
+    }
+
+    private int compareProblematicFirst(final int first, final int second) {
+        if (attempts[first] == 0 || attempts[second] == 0) {
+            if (attempts[first] != 0) {
+                return -1;
+            }
+            if (attempts[second] != 0) {
+                return 1;
+            }
+            return Integer.compare(first, second);
+        }
+        // compares wrong[first] / attempts[first] with wrong[second] / attempts[second] without rounding errors
+        final int byPercentage = Long.compare(
+            (long) wrongAnswers[second] * attempts[first],
+            (long) wrongAnswers[first] * attempts[second]
+        );
+        if (byPercentage != 0) {
+            return byPercentage;
+        }
+        final int byWrongAnswers = Integer.compare(wrongAnswers[second], wrongAnswers[first]);
+        return byWrongAnswers != 0 ? byWrongAnswers : Integer.compare(first, second);
+    }
+}
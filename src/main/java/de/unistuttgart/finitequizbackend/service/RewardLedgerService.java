@@ -0,0 +1,69 @@
+package de.unistuttgart.finitequizbackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.unistuttgart.finitequizbackend.Constants;
+import de.unistuttgart.finitequizbackend.data.RewardLedgerEntry;
+import de.unistuttgart.finitequizbackend.repositories.RewardLedgerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This service counts the perfect rounds of each player per configuration, so that only the first perfect rounds get
+ * the full rewards.
+ *
+ * The counters are kept in the database and updated with an atomic upsert, which only locks the row of the player and
+ * configuration. Once a player reached the maximum, the player is remembered in memory and further perfect rounds are
+ * answered without a database roundtrip; this is safe because the counters never decrease.
+ */
+@Service
+public class RewardLedgerService {
+
+    private final RewardLedgerRepository rewardLedgerRepository;
+
+    /**
+     * Players and configurations that already reached the maximal number of rewarded perfect rounds.
+     */
+    private final Cache<RewardLedgerEntry.Key, Boolean> cappedPlayers;
+
+    public RewardLedgerService(
+        final RewardLedgerRepository rewardLedgerRepository,
+        @Value("${finitequiz.rewards.capped-players.max-size:100000}") final long maxCappedPlayers,
+        final MeterRegistry meterRegistry
+    ) {
+        this.rewardLedgerRepository = rewardLedgerRepository;
+        this.cappedPlayers = Caffeine.newBuilder().maximumSize(maxCappedPlayers).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cappedPlayers, "capped-players");
+    }
+
+    /**
+     * Counts a perfect round of the player in the configuration.
+     * Must be called in the transaction that saves the game result, so that the round is not counted if saving fails.
+     *
+     * @param playerId        the id of the player
+     * @param configurationId the id of the configuration
+     * @return true if the round gets the full rewards, false if the player already had enough perfect rounds
+     * @throws IllegalArgumentException if at least one of the arguments is null
+     */
+    public boolean countPerfectRound(final String playerId, final UUID configurationId) {
+        if (playerId == null || configurationId == null) {
+            throw new IllegalArgumentException("playerId or configurationId is null");
+        }
+        final RewardLedgerEntry.Key key = new RewardLedgerEntry.Key(playerId, configurationId);
+        if (cappedPlayers.getIfPresent(key) != null) {
+            return false;
+        }
+        final boolean counted = rewardLedgerRepository.tryCountPerfectRound(
+            playerId,
+            configurationId,
+            Constants.MAX_REWARDED_PERFECT_ROUNDS
+        );
+        if (!counted) {
+            cappedPlayers.put(key, Boolean.TRUE);
+        }
+        return counted;
+    }
+}
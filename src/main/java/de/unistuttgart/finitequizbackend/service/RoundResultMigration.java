@@ -0,0 +1,136 @@
+package de.unistuttgart.finitequizbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves round results from the former storage (one round_result row per answer, linked through the join tables
+ * game_result_correct_answered_questions and game_result_wrong_answered_questions) to game_result_round.
+ *
+ * The copy runs on every startup and leaves the former tables in place, so instances of the previous version keep
+ * working during a rolling deploy and the deploy can be rolled back. Game results saved by those instances in the
+ * meantime are copied on the next startup. Once no instance of the previous version runs anymore, the former tables
+ * are dropped by a later release with finitequiz.migration.round-results.drop-legacy-tables, in a separate transaction
+ * after a last copy.
+ *
+ * An advisory lock makes other instances that start at the same time wait and then find nothing left to copy. The
+ * migration runs before the other startup runners, which expect the round results in game_result_round.
+ */
+@Component
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RoundResultMigration implements ApplicationRunner {
+
+    /**
+     * Arbitrary key of the advisory lock, only used by this migration.
+     */
+    static final long MIGRATION_LOCK_KEY = 4_172_017L;
+
+    static final String LEGACY_ROUND_RESULT_TABLE = "round_result";
+    static final String LEGACY_CORRECT_ANSWERS_TABLE = "game_result_correct_answered_questions";
+    static final String LEGACY_WRONG_ANSWERS_TABLE = "game_result_wrong_answered_questions";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean dropLegacyTables;
+
+    public RoundResultMigration(
+        final JdbcTemplate jdbcTemplate,
+        final TransactionTemplate transactionTemplate,
+        @Value("${finitequiz.migration.round-results.enabled:true}") final boolean enabled,
+        @Value("${finitequiz.migration.round-results.drop-legacy-tables:false}") final boolean dropLegacyTables
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.dropLegacyTables = dropLegacyTables;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (enabled) {
+            migrate();
+            if (dropLegacyTables) {
+                dropLegacyTables();
+            }
+        }
+    }
+
+    /**
+     * Copies the round results of all game results that have none in game_result_round yet, the correctly answered
+     * questions first. The former tables are kept.
+     *
+     * @return the number of migrated round results, 0 if there was nothing to migrate
+     */
+    public int migrate() {
+        final Integer migrated = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList("select pg_advisory_xact_lock(?)", MIGRATION_LOCK_KEY);
+            return copyLegacyRoundResults();
+        });
+        if (migrated != null && migrated > 0) {
+            log.info("migrated {} round results to game_result_round", migrated);
+        }
+        return migrated == null ? 0 : migrated;
+    }
+
+    /**
+     * Copies the round results that were saved since the last copy and drops the former tables. Only to be used once
+     * no instance of a version that writes the former tables runs anymore.
+     *
+     * @return the number of round results copied before dropping the former tables
+     */
+    public int dropLegacyTables() {
+        final Integer migrated = transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForList("select pg_advisory_xact_lock(?)", MIGRATION_LOCK_KEY);
+            final int rows = copyLegacyRoundResults();
+            jdbcTemplate.execute(
+                "drop table if exists " +
+                LEGACY_CORRECT_ANSWERS_TABLE +
+                ", " +
+                LEGACY_WRONG_ANSWERS_TABLE +
+                ", " +
+                LEGACY_ROUND_RESULT_TABLE
+            );
+            return rows;
+        });
+        log.info("dropped the former round result tables");
+        return migrated == null ? 0 : migrated;
+    }
+
+    private int copyLegacyRoundResults() {
+        if (!tableExists(LEGACY_ROUND_RESULT_TABLE)) {
+            return 0;
+        }
+        return jdbcTemplate.update(
+            "insert into game_result_round (game_result_id, round_index, question_id, answer, correct) " +
+            "select rounds.game_result_id, " +
+            "row_number() over (partition by rounds.game_result_id order by rounds.correct desc, r.id) - 1, " +
+            "r.question_id, r.answer, rounds.correct " +
+            "from (" +
+            "select game_result_id, correct_answered_questions_id as round_result_id, true as correct " +
+            "from " +
+            LEGACY_CORRECT_ANSWERS_TABLE +
+            " union all " +
+            "select game_result_id, wrong_answered_questions_id, false from " +
+            LEGACY_WRONG_ANSWERS_TABLE +
+            ") rounds join " +
+            LEGACY_ROUND_RESULT_TABLE +
+            " r on r.id = rounds.round_result_id " +
+            "where not exists (select 1 from game_result_round m where m.game_result_id = rounds.game_result_id)"
+        );
+    }
+
+    private boolean tableExists(final String table) {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject("select to_regclass(?) is not null", Boolean.class, table)
+        );
+    }
+}
@@ -0,0 +1,97 @@
+package de.unistuttgart.finitequizbackend.service;
+
+import de.unistuttgart.finitequizbackend.repositories.QuestionStatisticRepository;
+import de.unistuttgart.finitequizbackend.repositories.TimeSpentHistogramRepository;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This service rebuilds the precomputed statistics from the saved game results: the per-question counters in
+ * question_statistic and the time spent histograms in time_spent_bucket.
+ *
+ * Both are updated incrementally whenever game results are saved. They are rebuilt on startup if there are game results
+ * but one of them is still empty (i.e. the game results were saved by an earlier version), and by a monthly job after
+ * the expired partitions of game_result were detached, so that they only contain retained results.
+ */
+@Service
+@Slf4j
+public class StatisticCounterService implements ApplicationRunner {
+
+    private final QuestionStatisticRepository questionStatisticRepository;
+    private final TimeSpentHistogramRepository timeSpentHistogramRepository;
+    private final GameResultPartitionService gameResultPartitionService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean rebuildOnStartup;
+
+    public StatisticCounterService(
+        final QuestionStatisticRepository questionStatisticRepository,
+        final TimeSpentHistogramRepository timeSpentHistogramRepository,
+        final GameResultPartitionService gameResultPartitionService,
+        final TransactionTemplate transactionTemplate,
+        @Value("${finitequiz.statistics.rebuild-on-startup:true}") final boolean rebuildOnStartup
+    ) {
+        this.questionStatisticRepository = questionStatisticRepository;
+        this.timeSpentHistogramRepository = timeSpentHistogramRepository;
+        this.gameResultPartitionService = gameResultPartitionService;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /**
+     * Counts the existing game results if the statistics are still empty. Runs after the RoundResultMigration.
+     */
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        final boolean empty = questionStatisticRepository.isEmpty() || timeSpentHistogramRepository.isEmpty();
+        if (!empty || !questionStatisticRepository.hasRoundResults()) {
+            return;
+        }
+        // instances that start at the same time may both count, each recount replaces the statistics of a configuration
+        final int rows = recount();
+        log.info("counted the existing game results into {} question statistics and time spent buckets", rows);
+    }
+
+    /**
+     * Recomputes all statistics from the retained game results.
+     *
+     * @return the number of question statistics and time spent buckets
+     */
+    @Scheduled(cron = "${finitequiz.statistics.rebuild-cron:0 30 3 1 * *}")
+    public int rebuild() {
+        final int rows = recount();
+        log.info("rebuilt {} question statistics and time spent buckets", rows);
+        return rows;
+    }
+
+    /**
+     * Recounts the statistics of one configuration after the other, each in its own transaction. Only game results of
+     * the configuration that is recounted wait, until its transaction is committed, and are counted afterwards.
+     * The counters are locked before the histograms, in the order in which saving a game result updates them.
+     */
+    private int recount() {
+        final Date playedSince = gameResultPartitionService.getRetentionStart();
+        final Set<UUID> configurationIds = new HashSet<>(questionStatisticRepository.findConfigurationIds(playedSince));
+        configurationIds.addAll(timeSpentHistogramRepository.findConfigurationIds(playedSince));
+        int rows = 0;
+        for (final UUID configurationId : configurationIds) {
+            final Integer configurationRows = transactionTemplate.execute(status ->
+                questionStatisticRepository.recount(configurationId, playedSince) +
+                timeSpentHistogramRepository.recount(configurationId, playedSince)
+            );
+            rows += configurationRows == null ? 0 : configurationRows;
+        }
+        return rows;
+    }
+}
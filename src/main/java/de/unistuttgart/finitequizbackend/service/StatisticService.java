@@ -6,12 +6,21 @@ import de.unistuttgart.finitequizbackend.data.Question;
 import de.unistuttgart.finitequizbackend.data.mapper.QuestionMapper;
 import de.unistuttgart.finitequizbackend.data.statistic.ProblematicQuestion;
 import de.unistuttgart.finitequizbackend.data.statistic.TimeSpentDistribution;
+import de.unistuttgart.finitequizbackend.data.statistic.TimeSpentPercentile;
 import de.unistuttgart.finitequizbackend.repositories.GameResultRepository;
+import de.unistuttgart.finitequizbackend.repositories.QuestionStatisticRepository;
+import de.unistuttgart.finitequizbackend.repositories.TimeSpentHistogramRepository;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +32,27 @@ public class StatisticService {
     static final int MAX_PROBLEMATIC_QUESTIONS = 5;
     static final int[] TIME_SPENT_DISTRIBUTION_PERCENTAGES = { 0, 25, 50, 75, 100 };
 
+    /**
+     * The source of the statistics.
+     */
+    public enum Engine {
+        /**
+         * the counters in question_statistic and time_spent_bucket that are updated when game results are saved
+         */
+        COUNTERS,
+        /**
+         * the retained game results and their round results, counted on every request
+         */
+        GAME_RESULTS,
+        /**
+         * the retained game results and their round results, aggregated by the database on every request
+         */
+        DATABASE,
+    }
+
+    @Value("${finitequiz.statistics.engine:COUNTERS}")
+    private Engine engine;
+
     @Autowired
     private ConfigService configService;
 
@@ -32,88 +62,80 @@ public class StatisticService {
     @Autowired
     private GameResultRepository gameResultRepository;
 
+    @Autowired
+    private QuestionStatisticRepository questionStatisticRepository;
+
+    @Autowired
+    private TimeSpentHistogramRepository timeSpentHistogramRepository;
+
+    @Autowired
+    private GameResultPartitionService gameResultPartitionService;
+
     /**
-     * Returns a list of the most problematic questions of a minigame
+     * Returns a list of the most problematic questions of a minigame.
+     * With the COUNTERS engine the answers were counted when the game results were saved, so this only reads one
+     * counter per question. With the GAME_RESULTS engine the round results of all retained game results are counted,
+     * with the DATABASE engine the database counts them and only returns one row per question.
      *
      * @param configurationId the configuration id of the minigame
      * @return a list of the most problematic questions of a minigame
      */
     public List<ProblematicQuestion> getProblematicQuestions(final UUID configurationId) {
         final Configuration configuration = configService.getConfiguration(configurationId);
-        final List<GameResult> gameResults = gameResultRepository.findByConfigurationAsUUID(configurationId);
-        final List<ProblematicQuestion> problematicQuestions = new ArrayList<>();
-        for (Question question : configuration.getQuestions()) {
-            problematicQuestions.add(new ProblematicQuestion(0, 0, 0, questionMapper.questionToQuestionDTO(question)));
-        }
-
-        for (final GameResult gameResult : gameResults) {
-            // iterate over all wrong answered round results and add wrong answered counter for this problematic question
-            countWrongAnsweredQuestions(problematicQuestions, gameResult);
-
-            // iterate over all correct answered round results and add correct answered counter for this problematic question
-            countRightAnsweredQuestions(problematicQuestions, gameResult);
-        }
-        sortProblematicQuestionsByPercentageWrongAnswers(problematicQuestions);
-        return problematicQuestions.subList(0, Math.min(MAX_PROBLEMATIC_QUESTIONS, problematicQuestions.size()));
-    }
-
-    /**
-     * Counts amount of right answered questions and adds them to the problematic question list
-     *
-     * @param problematicQuestions the list of problematic questions where the right answered counter should be increased
-     * @param gameResult the game result which contains the answered questions
-     */
-    private void countRightAnsweredQuestions(List<ProblematicQuestion> problematicQuestions, GameResult gameResult) {
-        gameResult
-            .getCorrectAnsweredQuestions()
-            .forEach(roundResult -> problematicQuestions
-                .stream()
-                .filter(problematicQuestion ->
-                    problematicQuestion.getQuestion().getId().equals(roundResult.getQuestion().getId())
+        final List<Question> questions = new ArrayList<>(configuration.getQuestions());
+        final QuestionAnswerCounter counter = new QuestionAnswerCounter(
+            questions.stream().map(Question::getId).toList()
+        );
+        switch (engine) {
+            case COUNTERS -> questionStatisticRepository
+                .findByConfigurationId(configurationId)
+                .forEach(questionStatistic ->
+                    counter.add(
+                        questionStatistic.getQuestionId(),
+                        questionStatistic.getCorrectAnswers(),
+                        questionStatistic.getWrongAnswers()
+                    )
+                );
+            case GAME_RESULTS -> gameResultRepository
+                .findWithRoundResultsByConfigurationAsUUID(
+                    configurationId,
+                    gameResultPartitionService.getRetentionStart()
                 )
-                .findAny()
-                .ifPresent(ProblematicQuestion::addCorrectAnswer));
-    }
-
-    /**
-     * Counts amount of wrong answered questions and adds them to the problematic question list
-     *
-     * @param problematicQuestions the list of problematic questions where the wrong answered counter should be increased
-     * @param gameResult the game result which contains the answered questions
-     */
-    private void countWrongAnsweredQuestions(List<ProblematicQuestion> problematicQuestions, GameResult gameResult) {
-        gameResult
-            .getWrongAnsweredQuestions()
-            .forEach(roundResult -> problematicQuestions
-                .stream()
-                .filter(problematicQuestion ->
-                    problematicQuestion.getQuestion().getId().equals(roundResult.getQuestion().getId())
+                .forEach(gameResult ->
+                    gameResult
+                        .getRoundResults()
+                        .forEach(roundResult -> counter.count(roundResult.getQuestion().getId(), roundResult.isCorrect()))
+                );
+            case DATABASE -> gameResultRepository
+                .countAnswersByQuestion(configurationId, gameResultPartitionService.getRetentionStart())
+                .forEach(answerCount ->
+                    counter.add(
+                        UUID.fromString(answerCount.getQuestionId()),
+                        answerCount.getCorrectAnswers().intValue(),
+                        answerCount.getWrongAnswers().intValue()
+                    )
+                );
+        }
+        final List<ProblematicQuestion> problematicQuestions = new ArrayList<>(MAX_PROBLEMATIC_QUESTIONS);
+        for (final int index : counter.selectMostProblematic(MAX_PROBLEMATIC_QUESTIONS)) {
+            problematicQuestions.add(
+                new ProblematicQuestion(
+                    counter.getAttempts(index),
+                    counter.getCorrectAnswers(index),
+                    counter.getWrongAnswers(index),
+                    questionMapper.questionToQuestionDTO(questions.get(index))
                 )
-                .findAny()
-                .ifPresent(ProblematicQuestion::addWrongAnswer));
-    }
-
-    /**
-     * Sorts the list of problematic questions by the amount of wrong answers to attempts
-     *
-     * @param problematicQuestions the list of problematic questions to sort
-     */
-    private void sortProblematicQuestionsByPercentageWrongAnswers(List<ProblematicQuestion> problematicQuestions) {
-        problematicQuestions.sort((o1, o2) -> {
-            double percantageWrong1 = (double) o1.getWrongAnswers() / (double) o1.getAttempts();
-            double percantageWrong2 = (double) o2.getWrongAnswers() / (double) o2.getAttempts();
-            if (percantageWrong1 > percantageWrong2) {
-                return -1;
-            } else if (percantageWrong1 < percantageWrong2) {
-                return 1;
-            } else {
-                return 0;
-            }
-        });
+            );
+        }
+        return problematicQuestions;
     }
 
     /**
-     * Returns a list of the time spent distribution of a minigame
+     * Returns a list of the time spent distribution of a minigame.
+     * With the COUNTERS engine the borders are estimated from the time spent histogram of the configuration, which is
+     * updated when game results are saved; the estimates are at most 1.6 % off. With the GAME_RESULTS engine the
+     * retained game results are sorted by time spent. With the DATABASE engine the database ranks the game results by
+     * time spent and only returns the times at the borders.
      *
      * @param configurationId the configuration id of the minigame
      * @return a list of the time spent distribution of a minigame
@@ -128,7 +150,6 @@ public class StatisticService {
         if (TIME_SPENT_DISTRIBUTION_PERCENTAGES[TIME_SPENT_DISTRIBUTION_PERCENTAGES.length - 1] != 100) {
             throw new IllegalArgumentException("TIME_SPENT_DISTRIBUTION_PERCENTAGES must end with 100");
         }
-        final List<GameResult> gameResults = gameResultRepository.findByConfigurationAsUUID(configurationId);
         final List<TimeSpentDistribution> timeSpentDistributions = new ArrayList<>();
         for (int i = 0; i < TIME_SPENT_DISTRIBUTION_PERCENTAGES.length - 1; i++) {
             TimeSpentDistribution timeSpentDistribution = new TimeSpentDistribution();
@@ -136,28 +157,106 @@ public class StatisticService {
             timeSpentDistribution.setToPercentage(TIME_SPENT_DISTRIBUTION_PERCENTAGES[i + 1]);
             timeSpentDistributions.add(timeSpentDistribution);
         }
-        // order game results by time spent
-        sortGameResultsByPlayedTime(gameResults);
-
-        // calculate time spent time borders to time spent distribution percentage
-        int currentGameResultIndex = 0;
-        for (TimeSpentDistribution timeSpentDistribution : timeSpentDistributions) {
-            GameResult gameResult = null;
-            while (currentGameResultIndex < (timeSpentDistribution.getToPercentage() / 100.0) * gameResults.size()) {
-                gameResult = gameResults.get(currentGameResultIndex);
-                if (timeSpentDistribution.getFromTime() == 0) {
-                    timeSpentDistribution.setFromTime(gameResult.getTimeSpent());
-                }
-                timeSpentDistribution.addCount();
-                currentGameResultIndex++;
+        switch (engine) {
+            case COUNTERS -> {
+                final TimeSpentHistogram histogram = timeSpentHistogramRepository.findByConfigurationId(configurationId);
+                fillTimeSpentDistributions(
+                    timeSpentDistributions,
+                    histogram.getTotalCount(),
+                    histogram::estimateAtRank
+                );
             }
-            if (gameResult != null) {
-                timeSpentDistribution.setToTime(gameResult.getTimeSpent());
+            case GAME_RESULTS -> {
+                final List<GameResult> gameResults =
+                    gameResultRepository.findByConfigurationAsUUIDAndPlayedTimeGreaterThanEqual(
+                        configurationId,
+                        gameResultPartitionService.getRetentionStart()
+                    );
+                // order game results by time spent
+                sortGameResultsByPlayedTime(gameResults);
+                fillTimeSpentDistributions(
+                    timeSpentDistributions,
+                    gameResults.size(),
+                    rank -> gameResults.get((int) rank).getTimeSpent()
+                );
             }
+            case DATABASE -> fillTimeSpentDistributions(timeSpentDistributions, findTimeSpentPercentiles(configurationId));
         }
         return timeSpentDistributions;
     }
 
+    /**
+     * Computes the time spent at each time spent distribution percentage in the database
+     *
+     * @param configurationId the configuration id of the minigame
+     * @return the time spent by percentage, empty if there are no game results
+     */
+    private Map<Integer, TimeSpentPercentile> findTimeSpentPercentiles(final UUID configurationId) {
+        final String fractions = Arrays
+            .stream(TIME_SPENT_DISTRIBUTION_PERCENTAGES)
+            .mapToObj(percentage -> String.valueOf(percentage / 100.0))
+            .collect(Collectors.joining(","));
+        final Map<Integer, TimeSpentPercentile> percentiles = new HashMap<>();
+        gameResultRepository
+            .findTimeSpentPercentiles(configurationId, gameResultPartitionService.getRetentionStart(), fractions)
+            .forEach(percentile -> percentiles.put((int) Math.round(percentile.getFraction() * 100), percentile));
+        return percentiles;
+    }
+
+    /**
+     * Sets the time spent borders and the number of game results of each time spent distribution percentage.
+     * Like with the ranks of the sorted game results, fromTime is the time of the first game result at or above the
+     * start percentage and toTime the time of the last game result below the end percentage.
+     *
+     * @param timeSpentDistributions the time spent distributions with their percentages
+     * @param percentiles the time spent by percentage
+     */
+    private void fillTimeSpentDistributions(
+        final List<TimeSpentDistribution> timeSpentDistributions,
+        final Map<Integer, TimeSpentPercentile> percentiles
+    ) {
+        if (percentiles.isEmpty()) {
+            return;
+        }
+        final long gameResultCount = percentiles.values().iterator().next().getGameResultCount();
+        for (final TimeSpentDistribution timeSpentDistribution : timeSpentDistributions) {
+            final TimeSpentPercentile from = percentiles.get((int) timeSpentDistribution.getFromPercentage());
+            final TimeSpentPercentile to = percentiles.get((int) timeSpentDistribution.getToPercentage());
+            final long count =
+                (long) Math.ceil((timeSpentDistribution.getToPercentage() / 100.0) * gameResultCount) -
+                (long) Math.ceil((timeSpentDistribution.getFromPercentage() / 100.0) * gameResultCount);
+            if (count > 0) {
+                timeSpentDistribution.setFromTime(from.getNextTimeSpent());
+                timeSpentDistribution.setToTime(to.getTimeSpent());
+                timeSpentDistribution.setCount((int) count);
+            }
+        }
+    }
+
+    /**
+     * Calculates the time spent borders and the number of game results of each time spent distribution percentage
+     *
+     * @param timeSpentDistributions the time spent distributions with their percentages
+     * @param gameResultCount the number of game results
+     * @param timeSpentAtRank the time spent of the game result at a rank, when ordered by time spent
+     */
+    private void fillTimeSpentDistributions(
+        final List<TimeSpentDistribution> timeSpentDistributions,
+        final long gameResultCount,
+        final LongUnaryOperator timeSpentAtRank
+    ) {
+        long currentRank = 0;
+        for (final TimeSpentDistribution timeSpentDistribution : timeSpentDistributions) {
+            final long endRank = (long) Math.ceil((timeSpentDistribution.getToPercentage() / 100.0) * gameResultCount);
+            if (endRank > currentRank) {
+                timeSpentDistribution.setFromTime(timeSpentAtRank.applyAsLong(currentRank));
+                timeSpentDistribution.setToTime(timeSpentAtRank.applyAsLong(endRank - 1));
+                timeSpentDistribution.setCount((int) (endRank - currentRank));
+                currentRank = endRank;
+            }
+        }
+    }
+
     /**
      * Sorts a list of game results by played time
      *
@@ -0,0 +1,111 @@
+package de.unistuttgart.finitequizbackend.service;
+
+/**
+ * A log-linear histogram of the time spent on the game results of one configuration.
+ *
+ * Times below 2 * SUB_BUCKETS seconds have one bucket per second. Above, every power-of-two range is split into
+ * SUB_BUCKETS buckets of equal width, so a bucket is at most 1 / SUB_BUCKETS of its lower bound wide. Estimating a
+ * value by the middle of its bucket is therefore exact below 64 seconds and at most 1 / (2 * SUB_BUCKETS) (1.6 %) off
+ * above, independent of the number of counted values.
+ *
+ * Histograms are merged by adding the counts of equal buckets, which is how the buckets are persisted: one row per
+ * configuration and non-empty bucket in time_spent_bucket, updated with an atomic upsert.
+ */
+public class TimeSpentHistogram {
+
+    /**
+     * The number of buckets each power-of-two range is split into, 2^PRECISION_BITS.
+     */
+    public static final int PRECISION_BITS = 5;
+
+    public static final int SUB_BUCKETS = 1 << PRECISION_BITS;
+
+    /**
+     * The number of buckets needed for all non-negative long values.
+     */
+    public static final int BUCKET_COUNT = bucketOf(Long.MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+
+    /**
+     * @param timeSpent a time in seconds, negative times are counted as 0
+     * @return the index of the bucket containing the time
+     */
+    public static int bucketOf(final long timeSpent) {
+        if (timeSpent < SUB_BUCKETS) {
+            return (int) Math.max(0, timeSpent);
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(timeSpent) - PRECISION_BITS;
+        return (int) (shift * SUB_BUCKETS + (timeSpent >> shift));
+    }
+
+    /**
+     * @param bucket the index of a bucket
+     * @return the smallest time in the bucket
+     */
+    public static long lowerBoundOf(final int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket - shift * SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * @param bucket the index of a bucket
+     * @return the largest time in the bucket
+     */
+    public static long upperBoundOf(final int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowerBoundOf(bucket + 1) - 1;
+    }
+
+    /**
+     * Counts one time.
+     *
+     * @param timeSpent a time in seconds
+     */
+    public void add(final long timeSpent) {
+        addToBucket(bucketOf(timeSpent), 1);
+    }
+
+    /**
+     * Adds already counted times of a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @param count  the number of times in the bucket
+     */
+    public void addToBucket(final int bucket, final long count) {
+        counts[bucket] += count;
+        totalCount += count;
+    }
+
+    /**
+     * @return the number of counted times
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Estimates the time at a rank of the sorted times.
+     *
+     * @param rank the rank of the time, between 0 and getTotalCount() - 1
+     * @return the middle of the bucket containing the time, rounded down
+     * @throws IllegalArgumentException if the rank is out of range
+     */
+    public long estimateAtRank(final long rank) {
+        if (rank < 0 || rank >= totalCount) {
+            throw new IllegalArgumentException(String.format("rank %s is out of range", rank));
+        }
+        long countBelow = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            countBelow += counts[bucket];
+            if (rank < countBelow) {
+                final long lowerBound = lowerBoundOf(bucket);
+                return lowerBound + (upperBoundOf(bucket) - lowerBound) / 2;
+            }
+        }
+        throw new IllegalStateException("the counts of the buckets do not add up to the total count");
+    }
+}
@@ -0,0 +1,177 @@
+package de.unistuttgart.finitequizbackend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.unistuttgart.finitequizbackend.clients.ClientGuard;
+import de.unistuttgart.finitequizbackend.clients.OverworldClient;
+import de.unistuttgart.finitequizbackend.data.KeybindingDTO;
+import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * This service retrieves the volume level of players from the overworld-backend.
+ *
+ * The lookup runs in the background, so that it can overlap with reading the configuration. Volume levels are cached
+ * for a short time. If the overworld-backend does not answer within the latency budget, the last known volume level
+ * of the player (or the default volume level) is used instead of blocking the game start. While the circuit of the
+ * overworld client is open, the fallback is used without calling the overworld-backend.
+ */
+@Service
+@Slf4j
+public class VolumeLevelService {
+
+    static final String VOLUME_LEVEL_BINDING = "VOLUME_LEVEL";
+    static final int DEFAULT_VOLUME_LEVEL = 0;
+
+    private final OverworldClient overworldClient;
+    private final ClientGuard overworldClientGuard;
+    private final JWTValidatorService jwtValidatorService;
+    private final Duration latencyBudget;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Volume levels that were retrieved recently, by player id.
+     */
+    private final Cache<String, Integer> volumeLevels;
+
+    /**
+     * The last retrieved volume level of each player, used when the overworld-backend is slow or not available.
+     */
+    private final Cache<String, Integer> lastKnownVolumeLevels;
+
+    public VolumeLevelService(
+        final OverworldClient overworldClient,
+        @Qualifier("overworldClientGuard") final ClientGuard overworldClientGuard,
+        final JWTValidatorService jwtValidatorService,
+        @Value("${finitequiz.volume.cache-ttl:30s}") final Duration cacheTtl,
+        @Value("${finitequiz.volume.latency-budget:300ms}") final Duration latencyBudget,
+        @Value("${finitequiz.volume.lookup-threads:16}") final int lookupThreads,
+        final MeterRegistry meterRegistry
+    ) {
+        this.overworldClient = overworldClient;
+        this.overworldClientGuard = overworldClientGuard;
+        this.jwtValidatorService = jwtValidatorService;
+        this.latencyBudget = latencyBudget;
+        this.volumeLevels = Caffeine.newBuilder().maximumSize(100_000).expireAfterWrite(cacheTtl).recordStats().build();
+        this.lastKnownVolumeLevels = Caffeine.newBuilder().maximumSize(100_000).expireAfterAccess(Duration.ofDays(1)).build();
+        CaffeineCacheMetrics.monitor(meterRegistry, volumeLevels, "volume-levels");
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor =
+            new ThreadPoolExecutor(
+                lookupThreads,
+                lookupThreads,
+                60,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(lookupThreads * 16),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "volume-lookup-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts the lookup of the volume level of the user.
+     * The returned future completes within the latency budget, with the last known or the default volume level if the
+     * overworld-backend did not answer in time or failed.
+     *
+     * @param accessToken the users access token
+     * @return the volume level of the user
+     * @throws IllegalArgumentException if at least one of the arguments is null
+     */
+    public CompletableFuture<Integer> getVolumeLevel(final String accessToken) {
+        if (accessToken == null) {
+            throw new IllegalArgumentException("accessToken is null");
+        }
+        final String userId = jwtValidatorService.extractUserId(accessToken);
+        final Integer cachedVolumeLevel = volumeLevels.getIfPresent(userId);
+        if (cachedVolumeLevel != null) {
+            return CompletableFuture.completedFuture(cachedVolumeLevel);
+        }
+        if (!overworldClientGuard.isCallPermitted()) {
+            // the overworld-backend failed recently, do not wait for it
+            return CompletableFuture.completedFuture(getFallbackVolumeLevel(userId));
+        }
+        final CompletableFuture<Integer> lookup;
+        try {
+            lookup = CompletableFuture.supplyAsync(() -> retrieveVolumeLevel(userId, accessToken), executor);
+        } catch (final RejectedExecutionException rejectedExecutionException) {
+            log.warn("too many pending volume level lookups, using fallback for user {}", userId);
+            return CompletableFuture.completedFuture(getFallbackVolumeLevel(userId));
+        }
+        return lookup
+            .completeOnTimeout(null, latencyBudget.toMillis(), TimeUnit.MILLISECONDS)
+            .handle((volumeLevel, exception) -> {
+                if (exception == null && volumeLevel != null) {
+                    return volumeLevel;
+                }
+                final Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                if (cause instanceof ResponseStatusException responseStatusException) {
+                    throw responseStatusException;
+                }
+                if (cause == null) {
+                    log.warn("volume level of user {} not retrieved within {}, using fallback", userId, latencyBudget);
+                } else {
+                    log.warn("volume level of user {} could not be retrieved, using fallback: {}", userId, cause.toString());
+                }
+                return getFallbackVolumeLevel(userId);
+            });
+    }
+
+    /**
+     * Retrieves the volume level from the overworld-backend and remembers it.
+     * Results that arrive after the latency budget still update the caches.
+     *
+     * @param userId      the id of the user
+     * @param accessToken the users access token
+     * @return the volume level of the user, 0 if the user has not set a volume level
+     * @throws ResponseStatusException when the volume level of the user has an invalid format
+     */
+    private Integer retrieveVolumeLevel(final String userId, final String accessToken) {
+        final KeybindingDTO keyBindingVolumeLevel = overworldClientGuard.call(() ->
+            overworldClient.getKeybindingStatistic(userId, VOLUME_LEVEL_BINDING, accessToken)
+        );
+        final Integer volumeLevel;
+        if (keyBindingVolumeLevel.getKey() == null || keyBindingVolumeLevel.getKey().isEmpty()) {
+            volumeLevel = DEFAULT_VOLUME_LEVEL;
+        } else {
+            try {
+                volumeLevel = Integer.parseInt(keyBindingVolumeLevel.getKey());
+            } catch (final NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid volume level format.");
+            }
+        }
+        volumeLevels.put(userId, volumeLevel);
+        lastKnownVolumeLevels.put(userId, volumeLevel);
+        return volumeLevel;
+    }
+
+    private Integer getFallbackVolumeLevel(final String userId) {
+        final Integer lastKnownVolumeLevel = lastKnownVolumeLevels.getIfPresent(userId);
+        return lastKnownVolumeLevel != null ? lastKnownVolumeLevel : DEFAULT_VOLUME_LEVEL;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+-- Runs on every startup after Hibernate updated the schema, so every statement must be repeatable.
+
+-- Idempotency keys are claimed here, because unique constraints of a partitioned game_result would have to contain
+-- played_time.
+create table if not exists game_result_idempotency_key (
+    player_id varchar(255) not null,
+    idempotency_key varchar(255) not null,
+    game_result_id uuid not null,
+    primary key (player_id, idempotency_key)
+);
+
+-- Indexes used by the statistics and by retried game results.
+create index if not exists game_result_configuration_played_time_idx on game_result (configuration_asuuid, played_time);
+create index if not exists game_result_player_idempotency_key_idx on game_result (player_id, idempotency_key);
+create index if not exists game_result_round_question_idx on game_result_round (question_id);
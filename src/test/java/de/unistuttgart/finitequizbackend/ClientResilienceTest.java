@@ -0,0 +1,202 @@
+package de.unistuttgart.finitequizbackend;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.when;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import de.unistuttgart.finitequizbackend.clients.ClientGuard;
+import de.unistuttgart.finitequizbackend.data.Configuration;
+import de.unistuttgart.finitequizbackend.data.OverworldResultDTO;
+import de.unistuttgart.finitequizbackend.data.OverworldResultOutboxEntry;
+import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
+import de.unistuttgart.finitequizbackend.repositories.OverworldResultOutboxRepository;
+import de.unistuttgart.finitequizbackend.service.OverworldResultDispatcher;
+import de.unistuttgart.finitequizbackend.service.VolumeLevelService;
+import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Injects latency and errors of the overworld-backend with WireMock and checks that the calls fail fast and that
+ * endpoints that do not need the overworld-backend keep their latency.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "server.tomcat.threads.max=8",
+        "feign.client.config.overworldClient.read-timeout=1000",
+        "finitequiz.volume.cache-ttl=0s",
+        "finitequiz.clients.overworld.sliding-window-size=4",
+        "finitequiz.clients.overworld.minimum-calls=4",
+        "finitequiz.clients.overworld.open-duration=1h",
+        "finitequiz.clients.results.sliding-window-size=2",
+        "finitequiz.clients.results.minimum-calls=2",
+        "finitequiz.clients.results.open-duration=1h",
+        "finitequiz.outbox.initial-delay-ms=3600000",
+    }
+)
+@ActiveProfiles("test")
+@Import(WireMockConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ClientResilienceTest {
+
+    private static final String KEYBINDING_URL = "/players/testUser/keybindings/VOLUME_LEVEL";
+    private static final String SUBMIT_URL = "/internal/submit-game-pass";
+
+    @MockBean
+    JWTValidatorService jwtValidatorService;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private WireMockServer mockOverworldService;
+
+    @Autowired
+    private VolumeLevelService volumeLevelService;
+
+    @Autowired
+    private OverworldResultDispatcher dispatcher;
+
+    @Autowired
+    @Qualifier("overworldClientGuard")
+    private ClientGuard overworldClientGuard;
+
+    @Autowired
+    @Qualifier("resultClientGuard")
+    private ClientGuard resultClientGuard;
+
+    @Autowired
+    private ConfigurationRepository configurationRepository;
+
+    @Autowired
+    private OverworldResultOutboxRepository outboxRepository;
+
+    private Configuration configuration;
+
+    @BeforeEach
+    public void createBasicData() {
+        mockOverworldService.resetAll();
+        outboxRepository.deleteAll();
+        configurationRepository.deleteAll();
+        configuration = configurationRepository.save(new Configuration(new HashSet<>()));
+        doNothing().when(jwtValidatorService).validateTokenOrThrow("testToken");
+        when(jwtValidatorService.extractUserId("testToken")).thenReturn("testUser");
+    }
+
+    @AfterEach
+    public void deleteBasicData() {
+        outboxRepository.deleteAll();
+        configurationRepository.deleteAll();
+    }
+
+    @Test
+    void overworldErrors_OpenCircuit_VolumeLevelFallsBackWithoutCalls() {
+        mockOverworldService.stubFor(
+            WireMock.get(WireMock.urlEqualTo(KEYBINDING_URL)).willReturn(WireMock.serverError())
+        );
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, volumeLevelService.getVolumeLevel("testToken").join());
+        }
+        assertEquals(ClientGuard.State.OPEN, overworldClientGuard.getState());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, volumeLevelService.getVolumeLevel("testToken").join());
+        }
+        mockOverworldService.verify(4, WireMock.getRequestedFor(WireMock.urlEqualTo(KEYBINDING_URL)));
+    }
+
+    @Test
+    void slowOverworld_ConfigurationReadsKeepTheirLatency() throws Exception {
+        mockOverworldService.stubFor(
+            WireMock
+                .get(WireMock.urlEqualTo(KEYBINDING_URL))
+                .willReturn(WireMock.aResponse().withFixedDelay(5000).withStatus(HttpStatus.OK.value()))
+        );
+        // the players share the connections of restTemplate, the measured reads must not wait for them
+        final TestRestTemplate readClient = new TestRestTemplate(
+            new RestTemplateBuilder().rootUri(restTemplate.getRootUri())
+        );
+        final ExecutorService players = Executors.newFixedThreadPool(32);
+        try {
+            final List<Future<ResponseEntity<String>>> volumeRequests = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                volumeRequests.add(players.submit(() -> get("/configurations/" + configuration.getId() + "/volume")));
+            }
+
+            for (int i = 0; i < 10; i++) {
+                final long start = System.nanoTime();
+                final ResponseEntity<String> response = get(readClient, "/configurations/" + configuration.getId());
+                final long millis = (System.nanoTime() - start) / 1_000_000;
+                assertEquals(HttpStatus.OK, response.getStatusCode());
+                assertTrue(millis < 1000, "configuration read took " + millis + " ms");
+            }
+            for (final Future<ResponseEntity<String>> volumeRequest : volumeRequests) {
+                // the volume level falls back after the latency budget instead of waiting for the overworld-backend
+                assertEquals(HttpStatus.OK, volumeRequest.get().getStatusCode());
+            }
+        } finally {
+            players.shutdownNow();
+        }
+    }
+
+    @Test
+    void resultsServiceErrors_OpenCircuit_DispatchStopsWithoutCountingAttempts() {
+        mockOverworldService.stubFor(
+            WireMock
+                .post(WireMock.urlEqualTo(SUBMIT_URL))
+                .willReturn(WireMock.aResponse().withStatus(HttpStatus.SERVICE_UNAVAILABLE.value()))
+        );
+        for (int i = 0; i < 5; i++) {
+            outboxRepository.save(
+                new OverworldResultOutboxEntry(
+                    new OverworldResultDTO(UUID.randomUUID(), 50, "testUser", 5),
+                    "testToken",
+                    new Date()
+                )
+            );
+        }
+
+        assertEquals(2, dispatcher.dispatch());
+
+        assertEquals(ClientGuard.State.OPEN, resultClientGuard.getState());
+        mockOverworldService.verify(2, WireMock.postRequestedFor(WireMock.urlEqualTo(SUBMIT_URL)));
+        assertEquals(3, outboxRepository.findAll().stream().filter(entry -> entry.getAttempts() == 0).count());
+    }
+
+    private ResponseEntity<String> get(final String path) {
+        return get(restTemplate, path);
+    }
+
+    private ResponseEntity<String> get(final TestRestTemplate client, final String path) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.COOKIE, "access_token=testToken");
+        return client.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -4,6 +4,7 @@ import static java.util.Optional.of;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.doNothing;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -13,10 +14,13 @@ import de.unistuttgart.finitequizbackend.data.mapper.QuestionMapper;
 import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
 import de.unistuttgart.finitequizbackend.repositories.QuestionRepository;
 import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import javax.servlet.http.Cookie;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,6 +30,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -60,20 +65,20 @@ class ConfigControllerTest {
     private ObjectMapper objectMapper;
     private Configuration initialConfig;
     private ConfigurationDTO initialConfigDTO;
-    WrongAnswer wrongAnswer = new WrongAnswer();
-    WrongAnswerDTO wrongAnswerDTO = new WrongAnswerDTO();
+    WrongAnswer wrongAnswer = new WrongAnswer(UUID.randomUUID(), "321");
+    WrongAnswerDTO wrongAnswerDTO = new WrongAnswerDTO(UUID.randomUUID(), "321");
 
     @BeforeEach
     public void createBasicData() {
         configurationRepository.deleteAll();
         final Question questionOne = new Question();
         questionOne.setText("Are you cool?");
-        questionOne.setRightAnswer(Set.of("123", "12333"));
+        questionOne.setRightAnswer(new ArrayList<>(List.of("123", "12333")));
         questionOne.setWrongAnswers(Set.of(wrongAnswer));
 
         final Question questionTwo = new Question();
         questionTwo.setText("Is this game cool?");
-        questionTwo.setRightAnswer(Set.of("123", "12333"));
+        questionTwo.setRightAnswer(new ArrayList<>(List.of("123", "12333")));
         questionTwo.setWrongAnswers(Set.of(wrongAnswer));
 
         final Configuration configuration = new Configuration();
@@ -107,6 +112,43 @@ class ConfigControllerTest {
         assertTrue(initialConfigDTO.equalsContent(configurations.get(0)));
     }
 
+    @Test
+    void getConfigurationSummaries_FollowingCursor_ReturnsEveryConfigurationOnce() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            configurationRepository.save(new Configuration(Set.of()));
+        }
+        final Set<UUID> expectedIds = configurationRepository
+            .findAll()
+            .stream()
+            .map(Configuration::getId)
+            .collect(Collectors.toSet());
+
+        final List<UUID> returnedIds = new ArrayList<>();
+        UUID cursor = null;
+        do {
+            final MvcResult result = mvc
+                .perform(
+                    get(API_URL + "/summaries")
+                        .param("limit", "2")
+                        .param("after", cursor == null ? "" : cursor.toString())
+                        .cookie(cookie)
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andReturn();
+            final ConfigurationSummaryPageDTO page = objectMapper.readValue(
+                result.getResponse().getContentAsString(),
+                ConfigurationSummaryPageDTO.class
+            );
+            assertTrue(page.getConfigurations().size() <= 2);
+            page.getConfigurations().forEach(summary -> returnedIds.add(summary.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expectedIds.size(), returnedIds.size());
+        assertEquals(expectedIds, new HashSet<>(returnedIds));
+    }
+
     @Test
     void getSpecificConfiguration_DoesNotExist_ThrowsNotFound() throws Exception {
         mvc
@@ -114,10 +156,78 @@ class ConfigControllerTest {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getSpecificConfiguration_WithMatchingETag_ReturnsNotModified() throws Exception {
+        final MvcResult result = mvc
+            .perform(get(API_URL + "/" + initialConfig.getId()).cookie(cookie).contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn();
+        final String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc
+            .perform(
+                get(API_URL + "/" + initialConfig.getId())
+                    .cookie(cookie)
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isNotModified());
+        mvc
+            .perform(
+                get(API_URL + "/" + initialConfig.getId() + "/questions")
+                    .cookie(cookie)
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getSpecificConfiguration_AfterChange_ReturnsNewETag() throws Exception {
+        final MvcResult result = mvc
+            .perform(get(API_URL + "/" + initialConfig.getId()).cookie(cookie).contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn();
+        final String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+
+        final QuestionDTO addedQuestionDTO = new QuestionDTO(
+            "Was this question added later?",
+            List.of("Yes"),
+            Set.of(wrongAnswerDTO),
+            "4711"
+        );
+        mvc
+            .perform(
+                post(API_URL + "/" + initialConfig.getId() + "/questions")
+                    .content(objectMapper.writeValueAsString(addedQuestionDTO))
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated());
+
+        final MvcResult changedResult = mvc
+            .perform(
+                get(API_URL + "/" + initialConfig.getId())
+                    .cookie(cookie)
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk())
+            .andReturn();
+        final ConfigurationDTO changedConfigurationDTO = objectMapper.readValue(
+            changedResult.getResponse().getContentAsString(),
+            ConfigurationDTO.class
+        );
+
+        assertNotEquals(eTag, changedResult.getResponse().getHeader(HttpHeaders.ETAG));
+        assertSame(initialConfig.getQuestions().size() + 1, changedConfigurationDTO.getQuestions().size());
+    }
+
     @Test
     void createConfiguration() throws Exception {
         final ConfigurationDTO newCreatedConfigurationDTO = new ConfigurationDTO(
-            Set.of(new QuestionDTO("Is this a new configuration?", Set.of("123", "12333"), Set.of(wrongAnswerDTO),"123"))
+            Set.of(new QuestionDTO("Is this a new configuration?", List.of("123", "12333"), Set.of(wrongAnswerDTO),"123"))
         );
         final String bodyValue = objectMapper.writeValueAsString(newCreatedConfigurationDTO);
         final MvcResult result = mvc
@@ -145,7 +255,7 @@ class ConfigControllerTest {
     @Test
     void updateConfiguration() throws Exception {
         final Set<QuestionDTO> newQuestionsDTO = Set.of(
-            new QuestionDTO("Is this a new configuration?", Set.of("123", "12333"), Set.of(wrongAnswerDTO), "123443")
+            new QuestionDTO("Is this a new configuration?", List.of("123", "12333"), Set.of(wrongAnswerDTO), "123443")
         );
         initialConfigDTO.setQuestions(newQuestionsDTO);
         final String bodyValue = objectMapper.writeValueAsString(initialConfigDTO);
@@ -197,7 +307,7 @@ class ConfigControllerTest {
     void addQuestionToExistingConfiguration() throws Exception {
         final QuestionDTO addedQuestionDTO = new QuestionDTO(
             "What is this question about?",
-                Set.of("123", "12333"),
+                List.of("123", "12333"),
                 Set.of(wrongAnswerDTO),
                 "2233"
         );
@@ -221,6 +331,135 @@ class ConfigControllerTest {
         assertTrue(addedQuestionDTO.equalsContent(newAddedQuestionResponse));
     }
 
+    @Test
+    void addQuestionsToExistingConfiguration() throws Exception {
+        final List<QuestionDTO> addedQuestionDTOs = List.of(
+            new QuestionDTO("What is the first question about?", List.of("1"), Set.of(wrongAnswerDTO), "2233"),
+            new QuestionDTO("What is the second question about?", List.of("2"), Set.of(wrongAnswerDTO), "2234")
+        );
+
+        final MvcResult result = mvc
+            .perform(
+                post(API_URL + "/" + initialConfig.getId() + "/questions/bulk")
+                    .content(objectMapper.writeValueAsString(addedQuestionDTOs))
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated())
+            .andReturn();
+
+        final QuestionDTO[] addedQuestionsResponse = objectMapper.readValue(
+            result.getResponse().getContentAsString(),
+            QuestionDTO[].class
+        );
+        assertEquals(addedQuestionDTOs.size(), addedQuestionsResponse.length);
+        for (int i = 0; i < addedQuestionDTOs.size(); i++) {
+            assertTrue(addedQuestionDTOs.get(i).equalsContent(addedQuestionsResponse[i]));
+        }
+        assertEquals(
+            initialConfig.getQuestions().size() + addedQuestionDTOs.size(),
+            configurationRepository.findById(initialConfig.getId()).get().getQuestions().size()
+        );
+    }
+
+    @Test
+    void addQuestionsToExistingConfiguration_AsNdjson() throws Exception {
+        final QuestionDTO first = new QuestionDTO("First?", List.of("1"), Set.of(wrongAnswerDTO), "2233");
+        final QuestionDTO second = new QuestionDTO("Second?", List.of("2"), Set.of(wrongAnswerDTO), "2234");
+        final String body = objectMapper.writeValueAsString(first) + "\n" + objectMapper.writeValueAsString(second) + "\n";
+
+        mvc
+            .perform(
+                post(API_URL + "/" + initialConfig.getId() + "/questions/bulk")
+                    .content(body)
+                    .cookie(cookie)
+                    .contentType("application/x-ndjson")
+            )
+            .andExpect(status().isCreated());
+
+        assertEquals(
+            initialConfig.getQuestions().size() + 2,
+            configurationRepository.findById(initialConfig.getId()).get().getQuestions().size()
+        );
+    }
+
+    @Test
+    void addQuestionsToExistingConfiguration_InvalidQuestion_AddsNothing() throws Exception {
+        final List<QuestionDTO> addedQuestionDTOs = List.of(
+            new QuestionDTO("What is this question about?", List.of("1"), Set.of(wrongAnswerDTO), "2233"),
+            new QuestionDTO(" ", List.of("2"), Set.of(wrongAnswerDTO), "2234")
+        );
+
+        final MvcResult result = mvc
+            .perform(
+                post(API_URL + "/" + initialConfig.getId() + "/questions/bulk")
+                    .content(objectMapper.writeValueAsString(addedQuestionDTOs))
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("questions[1].text"));
+        assertEquals(
+            initialConfig.getQuestions().size(),
+            configurationRepository.findById(initialConfig.getId()).get().getQuestions().size()
+        );
+    }
+
+    @Test
+    void patchExistingConfiguration() throws Exception {
+        final List<Question> questions = new ArrayList<>(initialConfig.getQuestions());
+        final QuestionDTO modifiedQuestionDTO = questionMapper.questionToQuestionDTO(questions.get(0));
+        modifiedQuestionDTO.setText("Is this a patched question?");
+        final QuestionDTO addedQuestionDTO = new QuestionDTO("Added?", List.of("1"), Set.of(wrongAnswerDTO), "2233");
+        final ConfigurationPatchDTO patch = new ConfigurationPatchDTO(
+            List.of(addedQuestionDTO),
+            Set.of(questions.get(1).getId()),
+            List.of(modifiedQuestionDTO)
+        );
+
+        mvc
+            .perform(
+                patch(API_URL + "/" + initialConfig.getId())
+                    .content(objectMapper.writeValueAsString(patch))
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk());
+
+        final Configuration patchedConfig = configurationRepository.findById(initialConfig.getId()).get();
+        assertEquals(initialConfig.getQuestions().size(), patchedConfig.getQuestions().size());
+        assertEquals(initialConfig.getVersion() + 1, patchedConfig.getVersion());
+        assertFalse(questionRepository.existsById(questions.get(1).getId()));
+        assertEquals(
+            "Is this a patched question?",
+            questionRepository.findById(questions.get(0).getId()).get().getText()
+        );
+        assertTrue(patchedConfig.getQuestions().stream().anyMatch(question -> question.getText().equals("Added?")));
+    }
+
+    @Test
+    void patchExistingConfiguration_UnknownQuestions_ReportsAllIds() throws Exception {
+        final UUID firstUnknownId = UUID.randomUUID();
+        final UUID secondUnknownId = UUID.randomUUID();
+        final ConfigurationPatchDTO patch = new ConfigurationPatchDTO(null, Set.of(firstUnknownId, secondUnknownId), null);
+
+        final MvcResult result = mvc
+            .perform(
+                patch(API_URL + "/" + initialConfig.getId())
+                    .content(objectMapper.writeValueAsString(patch))
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+        assertTrue(result.getResponse().getErrorMessage().contains(firstUnknownId.toString()));
+        assertTrue(result.getResponse().getErrorMessage().contains(secondUnknownId.toString()));
+        assertEquals(initialConfig.getVersion(), configurationRepository.findById(initialConfig.getId()).get().getVersion());
+    }
+
     @Test
     void removeQuestionFromExistingConfiguration() throws Exception {
         final QuestionDTO removedQuestionDTO = initialConfigDTO.getQuestions().stream().findFirst().get();
@@ -312,4 +551,44 @@ class ConfigControllerTest {
             });
         assertNotEquals(cloneConfig, initialConfig);
     }
+
+    @Test
+    void testCloneConfigurationSeveralTimes() throws Exception {
+        final MvcResult result = mvc
+            .perform(
+                post(API_URL + "/" + initialConfig.getId() + "/clones")
+                    .param("count", "3")
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated())
+            .andReturn();
+        final UUID[] cloneIds = objectMapper.readValue(result.getResponse().getContentAsString(), UUID[].class);
+
+        assertEquals(3, new HashSet<>(Arrays.asList(cloneIds)).size());
+        final Set<UUID> clonedQuestionIds = new HashSet<>();
+        for (final UUID cloneId : cloneIds) {
+            final MvcResult cloneResult = mvc
+                .perform(get(API_URL + "/" + cloneId).cookie(cookie).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+            final ConfigurationDTO cloneConfigDTO = objectMapper.readValue(
+                cloneResult.getResponse().getContentAsString(),
+                ConfigurationDTO.class
+            );
+            assertEquals(initialConfigDTO.getQuestions().size(), cloneConfigDTO.getQuestions().size());
+            for (final QuestionDTO question : initialConfigDTO.getQuestions()) {
+                assertTrue(
+                    cloneConfigDTO
+                        .getQuestions()
+                        .stream()
+                        .anyMatch(cloneQuestion ->
+                            !cloneQuestion.getId().equals(question.getId()) && question.equalsContent(cloneQuestion)
+                        )
+                );
+            }
+            cloneConfigDTO.getQuestions().forEach(cloneQuestion -> clonedQuestionIds.add(cloneQuestion.getId()));
+        }
+        assertEquals(3 * initialConfigDTO.getQuestions().size(), clonedQuestionIds.size());
+    }
 }
@@ -0,0 +1,157 @@
+package de.unistuttgart.finitequizbackend;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.finitequizbackend.cache.ConfigurationCache;
+import de.unistuttgart.finitequizbackend.data.*;
+import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
+import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Checks that configurations are read through the configuration cache and that changes of a configuration remove it
+ * from the cache.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConfigurationCacheTest {
+
+    private final String API_URL = "/configurations";
+
+    @MockBean
+    JWTValidatorService jwtValidatorService;
+
+    Cookie cookie = new Cookie("access_token", "testToken");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @SpyBean
+    private ConfigurationRepository configurationRepository;
+
+    @Autowired
+    private ConfigurationCache configurationCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Configuration configuration;
+
+    @BeforeEach
+    public void createBasicData() {
+        configurationRepository.deleteAll();
+        final Question question = new Question(
+            "Are you cool?",
+            new ArrayList<>(List.of("yes")),
+            new HashSet<>(Set.of(new WrongAnswer(UUID.randomUUID(), "no"))),
+            UUID.randomUUID().toString()
+        );
+        configuration = configurationRepository.save(new Configuration(new HashSet<>(Set.of(question))));
+
+        doNothing().when(jwtValidatorService).validateTokenOrThrow("testToken");
+
+        configurationCache.invalidateAll();
+        clearInvocations(configurationRepository);
+    }
+
+    @AfterAll
+    public void deleteBasicData() {
+        configurationRepository.deleteAll();
+    }
+
+    @Test
+    void getConfiguration_SecondRequest_ServedFromCache() throws Exception {
+        final ConfigurationDTO first = getConfiguration();
+        final ConfigurationDTO second = getConfiguration();
+
+        verify(configurationRepository, times(1)).findWithQuestionsById(configuration.getId());
+        assertTrue(first.equalsContent(second));
+    }
+
+    @Test
+    void getConfiguration_AfterAddingQuestion_ReloadsConfiguration() throws Exception {
+        assertEquals(1, getConfiguration().getQuestions().size());
+
+        final QuestionDTO questionDTO = new QuestionDTO(
+            "Is this game cool?",
+            List.of("yes"),
+            Set.of(new WrongAnswerDTO(UUID.randomUUID(), "no")),
+            UUID.randomUUID().toString()
+        );
+        mvc
+            .perform(
+                post(API_URL + "/" + configuration.getId() + "/questions")
+                    .cookie(cookie)
+                    .content(objectMapper.writeValueAsString(questionDTO))
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated());
+
+        assertEquals(2, getConfiguration().getQuestions().size());
+        verify(configurationRepository, times(2)).findWithQuestionsById(configuration.getId());
+    }
+
+    @Test
+    void get_AfterInvalidationDuringLoad_DoesNotWaitForFormerLoad() throws Exception {
+        final UUID id = UUID.randomUUID();
+        final Configuration formerConfiguration = new Configuration(new HashSet<>());
+        final Configuration changedConfiguration = new Configuration(new HashSet<>());
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch finishLoad = new CountDownLatch(1);
+        final CompletableFuture<Configuration> formerLoad = CompletableFuture.supplyAsync(() ->
+            configurationCache.get(
+                id,
+                key -> {
+                    loadStarted.countDown();
+                    try {
+                        finishLoad.await(10, TimeUnit.SECONDS);
+                    } catch (final InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return formerConfiguration;
+                }
+            )
+        );
+        assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+
+        // the configuration changes while the former state is still loaded
+        configurationCache.invalidate(id);
+        assertSame(changedConfiguration, configurationCache.get(id, key -> changedConfiguration));
+
+        finishLoad.countDown();
+        assertSame(formerConfiguration, formerLoad.get(10, TimeUnit.SECONDS));
+        assertSame(changedConfiguration, configurationCache.get(id, key -> formerConfiguration));
+    }
+
+    private ConfigurationDTO getConfiguration() throws Exception {
+        final MvcResult result = mvc
+            .perform(get(API_URL + "/" + configuration.getId()).cookie(cookie).contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), ConfigurationDTO.class);
+    }
+}
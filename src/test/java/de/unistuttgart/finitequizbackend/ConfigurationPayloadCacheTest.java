@@ -0,0 +1,92 @@
+package de.unistuttgart.finitequizbackend;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.finitequizbackend.cache.ConfigurationPayloadCache;
+import de.unistuttgart.finitequizbackend.cache.ConfigurationPayloadCache.SerializedConfiguration;
+import de.unistuttgart.finitequizbackend.data.Configuration;
+import de.unistuttgart.finitequizbackend.data.ConfigurationDTO;
+import de.unistuttgart.finitequizbackend.data.mapper.ConfigurationMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashSet;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConfigurationPayloadCacheTest {
+
+    private ConfigurationMapper configurationMapper;
+
+    @BeforeEach
+    public void createMapper() {
+        configurationMapper = mock(ConfigurationMapper.class);
+        when(configurationMapper.configurationToConfigurationDTO(any()))
+            .thenAnswer(invocation -> {
+                final Configuration configuration = invocation.getArgument(0);
+                return new ConfigurationDTO(configuration.getId(), new HashSet<>(), null);
+            });
+    }
+
+    @Test
+    void get_SameVersion_ServedFromCache() {
+        final ConfigurationPayloadCache cache = createCache(true, Long.MAX_VALUE);
+        final Configuration configuration = createConfiguration(UUID.randomUUID(), 1);
+
+        assertSame(cache.get(configuration), cache.get(configuration));
+    }
+
+    @Test
+    void get_OtherVersion_CachedPayloadNotServed() {
+        final ConfigurationPayloadCache cache = createCache(true, Long.MAX_VALUE);
+        final UUID id = UUID.randomUUID();
+        final SerializedConfiguration payload = cache.get(createConfiguration(id, 2));
+
+        // an outdated read must neither be answered with nor replace the newer payload
+        final SerializedConfiguration outdatedPayload = cache.get(createConfiguration(id, 1));
+        assertEquals(1, outdatedPayload.getVersion());
+        assertSame(payload, cache.get(createConfiguration(id, 2)));
+
+        final SerializedConfiguration newerPayload = cache.get(createConfiguration(id, 3));
+        assertEquals(3, newerPayload.getVersion());
+        assertSame(newerPayload, cache.get(createConfiguration(id, 3)));
+    }
+
+    @Test
+    void get_MoreBytesThanMaximum_EvictsPayloads() {
+        final ConfigurationPayloadCache unboundedCache = createCache(false, Long.MAX_VALUE);
+        unboundedCache.get(createConfiguration(UUID.randomUUID(), 1));
+        final long payloadBytes = unboundedCache.getCachedBytes();
+        assertTrue(payloadBytes > 0);
+
+        final long maxBytes = payloadBytes * 2 + payloadBytes / 2;
+        // without gzip all payloads have the same size
+        final ConfigurationPayloadCache cache = createCache(false, maxBytes);
+        for (int i = 0; i < 5; i++) {
+            cache.get(createConfiguration(UUID.randomUUID(), 1));
+        }
+
+        assertEquals(payloadBytes * 2, cache.getCachedBytes());
+    }
+
+    private ConfigurationPayloadCache createCache(final boolean gzip, final long maxBytes) {
+        return new ConfigurationPayloadCache(
+            true,
+            gzip,
+            maxBytes,
+            configurationMapper,
+            new ObjectMapper(),
+            new SimpleMeterRegistry()
+        );
+    }
+
+    private static Configuration createConfiguration(final UUID id, final long version) {
+        final Configuration configuration = new Configuration(new HashSet<>());
+        configuration.setId(id);
+        configuration.setVersion(version);
+        return configuration;
+    }
+}
@@ -0,0 +1,287 @@
+package de.unistuttgart.finitequizbackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doNothing;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.finitequizbackend.cache.ConfigurationCache;
+import de.unistuttgart.finitequizbackend.data.*;
+import de.unistuttgart.finitequizbackend.data.mapper.QuestionMapper;
+import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
+import de.unistuttgart.finitequizbackend.repositories.GameResultRepository;
+import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.Cookie;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Makes sure that loading a configuration costs a constant number of SQL statements, independent of the number of
+ * questions and answers, so that the N+1 loading of the question collections cannot come back.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(
+    properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // the outbox dispatcher would add its own statements to the global statistics
+        "finitequiz.outbox.initial-delay-ms=3600000",
+        // the statistics are counted from the game result entities instead of the counters
+        "finitequiz.statistics.engine=GAME_RESULTS",
+    }
+)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConfigurationQueryCountTest {
+
+    private static final int NUMBER_OF_QUESTIONS = 30;
+    private static final int NUMBER_OF_GAME_RESULTS = 10;
+
+    @MockBean
+    JWTValidatorService jwtValidatorService;
+
+    Cookie cookie = new Cookie("access_token", "testToken");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ConfigurationRepository configurationRepository;
+
+    @Autowired
+    private GameResultRepository gameResultRepository;
+
+    @Autowired
+    private ConfigurationCache configurationCache;
+
+    @Autowired
+    private QuestionMapper questionMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Configuration configuration;
+
+    @BeforeEach
+    public void createBasicData() {
+        gameResultRepository.deleteAll();
+        configurationRepository.deleteAll();
+
+        final Set<Question> questions = new HashSet<>();
+        for (int i = 0; i < NUMBER_OF_QUESTIONS; i++) {
+            questions.add(
+                new Question(
+                    "question" + i,
+                    new ArrayList<>(List.of("answer" + i, "alternative answer" + i)),
+                    new HashSet<>(
+                        Set.of(
+                            new WrongAnswer(UUID.randomUUID(), "wrong answer" + i),
+                            new WrongAnswer(UUID.randomUUID(), "other wrong answer" + i)
+                        )
+                    ),
+                    UUID.randomUUID().toString()
+                )
+            );
+        }
+        configuration = configurationRepository.save(new Configuration(questions));
+
+        final List<Question> questionList = new ArrayList<>(configuration.getQuestions());
+        final List<GameResult> gameResults = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_GAME_RESULTS; i++) {
+            final List<RoundResult> correctAnswers = new ArrayList<>();
+            final List<RoundResult> wrongAnswers = new ArrayList<>();
+            for (int j = 0; j < questionList.size(); j++) {
+                if ((i + j) % 3 == 0) {
+                    wrongAnswers.add(new RoundResult(questionList.get(j), "wrong answer" + j));
+                } else {
+                    correctAnswers.add(new RoundResult(questionList.get(j), "answer" + j));
+                }
+            }
+            gameResults.add(
+                new GameResult(
+                    questionList.size(),
+                    0,
+                    60,
+                    0,
+                    correctAnswers,
+                    wrongAnswers,
+                    configuration.getId(),
+                    UUID.randomUUID().toString()
+                )
+            );
+        }
+        gameResultRepository.saveAll(gameResults);
+
+        doNothing().when(jwtValidatorService).validateTokenOrThrow("testToken");
+
+        configurationCache.invalidateAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterAll
+    public void deleteBasicData() {
+        gameResultRepository.deleteAll();
+        configurationRepository.deleteAll();
+    }
+
+    @Test
+    void getConfiguration_LoadsQuestionGraphWithConstantNumberOfStatements() throws Exception {
+        mvc
+            .perform(
+                get("/configurations/" + configuration.getId()).cookie(cookie).contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk());
+
+        // version check, configuration with questions and wrong answers, right answers
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+    }
+
+    @Test
+    void getQuestions_LoadsQuestionGraphWithConstantNumberOfStatements() throws Exception {
+        mvc
+            .perform(
+                get("/configurations/" + configuration.getId() + "/questions")
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk());
+
+        // version check, configuration with questions and wrong answers, right answers
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+    }
+
+    @Test
+    void getConfiguration_Cached_DoesNotLoadQuestionGraph() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mvc
+                .perform(
+                    get("/configurations/" + configuration.getId())
+                        .cookie(cookie)
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk());
+        }
+
+        // one load of the question graph, then only the version checks
+        assertEquals(2 + 3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateQuestion_DoesNotLoadConfiguration() throws Exception {
+        final Question question = configuration.getQuestions().iterator().next();
+        final QuestionDTO questionDTO = new QuestionDTO(
+            "changed question",
+            List.of("changed answer"),
+            Set.of(new WrongAnswerDTO(UUID.randomUUID(), "changed wrong answer")),
+            question.getUuid()
+        );
+        mvc
+            .perform(
+                put("/configurations/" + configuration.getId() + "/questions/" + question.getId())
+                    .cookie(cookie)
+                    .content(new ObjectMapper().writeValueAsString(questionDTO))
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk());
+
+        assertEquals(0, statistics.getEntityStatistics(Configuration.class.getName()).getLoadCount());
+    }
+
+    @Test
+    void removeQuestion_DoesNotLoadConfiguration() throws Exception {
+        // a question that was already answered cannot be deleted, because its round results reference it
+        gameResultRepository.deleteAll();
+        statistics.clear();
+        final Question question = configuration.getQuestions().iterator().next();
+        mvc
+            .perform(
+                delete("/configurations/" + configuration.getId() + "/questions/" + question.getId())
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk());
+
+        assertEquals(0, statistics.getEntityStatistics(Configuration.class.getName()).getLoadCount());
+        assertEquals(
+            NUMBER_OF_QUESTIONS - 1,
+            configurationRepository.findWithQuestionsById(configuration.getId()).orElseThrow().getQuestions().size()
+        );
+    }
+
+    @Test
+    void patchConfiguration_OnlyWritesChangedRows() throws Exception {
+        final Question question = configuration.getQuestions().iterator().next();
+        final QuestionDTO modifiedQuestionDTO = questionMapper.questionToQuestionDTO(question);
+        modifiedQuestionDTO.setText("fixed typo");
+        final ConfigurationPatchDTO patch = new ConfigurationPatchDTO(null, null, List.of(modifiedQuestionDTO));
+        mvc
+            .perform(
+                patch("/configurations/" + configuration.getId())
+                    .cookie(cookie)
+                    .content(new ObjectMapper().writeValueAsString(patch))
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk());
+
+        assertEquals(0, statistics.getEntityStatistics(Configuration.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        // only the text of the question changed, its answers are not rewritten
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertEquals(0, statistics.getCollectionRemoveCount());
+        assertEquals(0, statistics.getCollectionUpdateCount());
+    }
+
+    @Test
+    void cloneConfiguration_DoesNotLoadQuestionCollectionsOneByOne() throws Exception {
+        mvc
+            .perform(
+                post("/configurations/" + configuration.getId() + "/clone")
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated());
+
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+
+    @Test
+    void getProblematicQuestions_LoadsGameResultsWithConstantNumberOfStatements() throws Exception {
+        mvc
+            .perform(
+                get("/statistics/" + configuration.getId() + "/problematic-questions")
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk());
+
+        // questions with their wrong answers, right answers, and game results with their round results
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+}
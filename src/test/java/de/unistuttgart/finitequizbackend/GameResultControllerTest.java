@@ -1,6 +1,7 @@
 package de.unistuttgart.finitequizbackend;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -11,10 +12,12 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import de.unistuttgart.finitequizbackend.data.*;
 import de.unistuttgart.finitequizbackend.data.mapper.ConfigurationMapper;
 import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
+import de.unistuttgart.finitequizbackend.repositories.GameResultIdempotencyKeyRepository;
 import de.unistuttgart.finitequizbackend.repositories.GameResultRepository;
 import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -30,6 +33,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -43,6 +47,7 @@ import org.springframework.test.web.servlet.MvcResult;
 @EnableConfigurationProperties
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = { WireMockConfig.class })
+@DirtiesContext
 class GameResultControllerTest {
 
     private final String API_URL = "/results";
@@ -64,6 +69,9 @@ class GameResultControllerTest {
     @Autowired
     private GameResultRepository gameResultRepository;
 
+    @Autowired
+    private GameResultIdempotencyKeyRepository idempotencyKeyRepository;
+
     @Autowired
     private WireMockServer mockResultsService;
 
@@ -80,13 +88,17 @@ class GameResultControllerTest {
         configurationRepository.deleteAll();
         initialQuestion1 = new Question();
         initialQuestion1.setText("Are you cool?");
-        initialQuestion1.setRightAnswer("Yes");
-        initialQuestion1.setWrongAnswers(Set.of("No", "Maybe"));
+        initialQuestion1.setRightAnswer(new ArrayList<>(List.of("Yes")));
+        initialQuestion1.setWrongAnswers(
+            new HashSet<>(Set.of(new WrongAnswer(UUID.randomUUID(), "No"), new WrongAnswer(UUID.randomUUID(), "Maybe")))
+        );
 
         initialQuestion2 = new Question();
         initialQuestion2.setText("Is this game cool?");
-        initialQuestion2.setRightAnswer("Yes");
-        initialQuestion2.setWrongAnswers(Set.of("No", "Maybe"));
+        initialQuestion2.setRightAnswer(new ArrayList<>(List.of("Yes")));
+        initialQuestion2.setWrongAnswers(
+            new HashSet<>(Set.of(new WrongAnswer(UUID.randomUUID(), "No"), new WrongAnswer(UUID.randomUUID(), "Maybe")))
+        );
 
         final Configuration configuration = new Configuration();
         configuration.setQuestions(Set.of(initialQuestion1, initialQuestion2));
@@ -120,9 +132,9 @@ class GameResultControllerTest {
     void saveGameResult() throws Exception {
         final List<RoundResultDTO> correctList = new ArrayList<>();
         final List<RoundResultDTO> wrongList = new ArrayList<>();
-        correctList.add(new RoundResultDTO(initialQuestion1.getId(), initialQuestion1.getRightAnswer()));
+        correctList.add(new RoundResultDTO(initialQuestion1.getId(), initialQuestion1.getRightAnswer().get(0)));
         wrongList.add(
-            new RoundResultDTO(initialQuestion2.getId(), initialQuestion2.getWrongAnswers().stream().findFirst().get())
+            new RoundResultDTO(initialQuestion2.getId(), initialQuestion2.getWrongAnswers().stream().findFirst().get().getText())
         );
         final GameResultDTO gameResultDTO = new GameResultDTO(2, 50, 30, 5, correctList, wrongList, UUID.randomUUID());
 
@@ -139,4 +151,139 @@ class GameResultControllerTest {
 
         assertEquals(gameResultDTO, createdGameResultDTO);
     }
+
+    @Test
+    void saveGameResult_UnknownQuestions_ReportsAllIds() throws Exception {
+        final UUID firstUnknownId = UUID.randomUUID();
+        final UUID secondUnknownId = UUID.randomUUID();
+        final List<RoundResultDTO> correctList = List.of(
+            new RoundResultDTO(initialQuestion1.getId(), "Yes"),
+            new RoundResultDTO(firstUnknownId, "Yes")
+        );
+        final List<RoundResultDTO> wrongList = List.of(new RoundResultDTO(secondUnknownId, "No"));
+        final GameResultDTO gameResultDTO = new GameResultDTO(3, 33, 30, 3, correctList, wrongList, UUID.randomUUID());
+
+        final MvcResult result = mvc
+            .perform(
+                post(API_URL)
+                    .cookie(cookie)
+                    .content(objectMapper.writeValueAsString(gameResultDTO))
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+        assertTrue(result.getResponse().getErrorMessage().contains(firstUnknownId.toString()));
+        assertTrue(result.getResponse().getErrorMessage().contains(secondUnknownId.toString()));
+        assertEquals(0, gameResultRepository.count());
+    }
+
+    @Test
+    void saveGameResult_SameIdempotencyKey_SavesResultOnce() throws Exception {
+        final String idempotencyKey = UUID.randomUUID().toString();
+        final List<RoundResultDTO> correctList = List.of(new RoundResultDTO(initialQuestion1.getId(), "Yes"));
+        final GameResultDTO gameResultDTO = new GameResultDTO(2, 50, 30, 5, correctList, List.of(), UUID.randomUUID());
+        final String bodyValue = objectMapper.writeValueAsString(gameResultDTO);
+
+        final String firstResponse = mvc
+            .perform(
+                post(API_URL)
+                    .cookie(cookie)
+                    .header("Idempotency-Key", idempotencyKey)
+                    .content(bodyValue)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+        final String secondResponse = mvc
+            .perform(
+                post(API_URL)
+                    .cookie(cookie)
+                    .header("Idempotency-Key", idempotencyKey)
+                    .content(bodyValue)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertEquals(firstResponse, secondResponse);
+        assertEquals(1, gameResultRepository.count());
+    }
+
+    @Test
+    void saveGameResult_IdempotencyKeySavedByOtherInstance_ReturnsSavedResult() throws Exception {
+        final String idempotencyKey = UUID.randomUUID().toString();
+        final GameResult savedResult = new GameResult(
+            2,
+            50,
+            30,
+            5,
+            new ArrayList<>(),
+            new ArrayList<>(),
+            initialConfig.getId(),
+            "testUser"
+        );
+        savedResult.setIdempotencyKey(idempotencyKey);
+        idempotencyKeyRepository.claimKeys(List.of(gameResultRepository.save(savedResult)));
+
+        final List<RoundResultDTO> correctList = List.of(
+            new RoundResultDTO(initialQuestion1.getId(), "Yes"),
+            new RoundResultDTO(initialQuestion2.getId(), "Yes")
+        );
+        final GameResultDTO gameResultDTO = new GameResultDTO(2, 100, 30, 10, correctList, List.of(), UUID.randomUUID());
+        final MvcResult result = mvc
+            .perform(
+                post(API_URL)
+                    .cookie(cookie)
+                    .header("Idempotency-Key", idempotencyKey)
+                    .content(objectMapper.writeValueAsString(gameResultDTO))
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated())
+            .andReturn();
+
+        final GameResultDTO returnedGameResultDTO = objectMapper.readValue(
+            result.getResponse().getContentAsString(),
+            GameResultDTO.class
+        );
+        assertEquals(50, returnedGameResultDTO.getScore());
+        assertEquals(5, returnedGameResultDTO.getRewards());
+        assertEquals(1, gameResultRepository.count());
+    }
+
+    @Test
+    void saveGameResult_PerfectRounds_RewardsCappedPerPlayerAndConfiguration() throws Exception {
+        final List<RoundResultDTO> correctList = List.of(
+            new RoundResultDTO(initialQuestion1.getId(), "Yes"),
+            new RoundResultDTO(initialQuestion2.getId(), "Yes")
+        );
+        final UUID configurationId = initialConfig.getId();
+        final List<Integer> rewards = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            rewards.add(submitPerfectRound(correctList, configurationId));
+        }
+        assertEquals(List.of(10, 10, 10, 5), rewards);
+
+        // the rounds of other configurations are counted separately
+        assertEquals(10, submitPerfectRound(correctList, UUID.randomUUID()));
+    }
+
+    private int submitPerfectRound(final List<RoundResultDTO> correctList, final UUID configurationId)
+        throws Exception {
+        final GameResultDTO gameResultDTO = new GameResultDTO(2, 100, 30, 10, correctList, List.of(), configurationId);
+        final MvcResult result = mvc
+            .perform(
+                post(API_URL)
+                    .cookie(cookie)
+                    .content(objectMapper.writeValueAsString(gameResultDTO))
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated())
+            .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), GameResultDTO.class).getRewards();
+    }
 }
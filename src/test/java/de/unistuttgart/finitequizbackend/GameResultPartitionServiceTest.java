@@ -0,0 +1,80 @@
+package de.unistuttgart.finitequizbackend;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.unistuttgart.finitequizbackend.service.GameResultPartitionService;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = { "finitequiz.partitions.enabled=true", "finitequiz.partitions.retention-months=24" })
+@ActiveProfiles("test")
+class GameResultPartitionServiceTest {
+
+    private static final String EXPIRED_PARTITION = "game_result_p2000_01";
+
+    @Autowired
+    private GameResultPartitionService partitionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void dropExpiredPartition() {
+        jdbcTemplate.execute("drop table if exists " + EXPIRED_PARTITION);
+    }
+
+    @Test
+    void startup_PartitionsGameResultsByMonth() {
+        assertEquals(
+            "p",
+            jdbcTemplate.queryForObject(
+                "select relkind::text from pg_class where oid = 'game_result'::regclass",
+                String.class
+            )
+        );
+        final List<String> partitions = getPartitions();
+        final YearMonth currentMonth = YearMonth.now();
+        for (int i = 0; i <= 3; i++) {
+            final String suffix = currentMonth.plusMonths(i).format(DateTimeFormatter.ofPattern("yyyy_MM"));
+            assertTrue(partitions.contains("game_result_p" + suffix));
+        }
+    }
+
+    @Test
+    void maintainPartitions_DetachesExpiredPartitions() {
+        jdbcTemplate.execute(
+            "create table " +
+            EXPIRED_PARTITION +
+            " partition of game_result for values from ('2000-01-01') to ('2000-02-01')"
+        );
+
+        partitionService.maintainPartitions();
+
+        assertFalse(getPartitions().contains(EXPIRED_PARTITION));
+        // detached partitions are kept for archiving
+        assertNotNull(jdbcTemplate.queryForObject("select to_regclass(?)::text", String.class, EXPIRED_PARTITION));
+        // statistics skip the months of detached partitions only
+        assertEquals(
+            Date.from(LocalDate.of(2000, 2, 1).atStartOfDay(ZoneId.systemDefault()).toInstant()),
+            partitionService.getRetentionStart()
+        );
+    }
+
+    private List<String> getPartitions() {
+        return jdbcTemplate.queryForList(
+            "select child.relname from pg_inherits join pg_class child on child.oid = pg_inherits.inhrelid " +
+            "where pg_inherits.inhparent = 'game_result'::regclass",
+            String.class
+        );
+    }
+}
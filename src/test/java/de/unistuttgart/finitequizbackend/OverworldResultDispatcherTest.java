@@ -0,0 +1,169 @@
+package de.unistuttgart.finitequizbackend;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import de.unistuttgart.finitequizbackend.data.AccessTokenConverter;
+import de.unistuttgart.finitequizbackend.data.OverworldResultDTO;
+import de.unistuttgart.finitequizbackend.data.OverworldResultOutboxEntry;
+import de.unistuttgart.finitequizbackend.repositories.OverworldResultOutboxRepository;
+import de.unistuttgart.finitequizbackend.service.OverworldResultDispatcher;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(
+    properties = {
+        "finitequiz.outbox.initial-delay-ms=3600000",
+        "finitequiz.outbox.max-attempts=3",
+        "finitequiz.outbox.initial-backoff=0s",
+        // the failing deliveries of one test must not open the circuit for the next one
+        "finitequiz.clients.results.sliding-window-size=100",
+        "finitequiz.clients.results.minimum-calls=100",
+    }
+)
+@ActiveProfiles("test")
+@Import(WireMockConfig.class)
+@DirtiesContext
+class OverworldResultDispatcherTest {
+
+    private static final String SUBMIT_URL = "/internal/submit-game-pass";
+
+    @Autowired
+    private OverworldResultDispatcher dispatcher;
+
+    @Autowired
+    private OverworldResultOutboxRepository outboxRepository;
+
+    @Autowired
+    private WireMockServer mockResultsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private OverworldResultOutboxEntry entry;
+
+    @BeforeEach
+    public void createBasicData() {
+        mockResultsService.resetAll();
+        outboxRepository.deleteAll();
+        entry =
+            outboxRepository.save(
+                new OverworldResultOutboxEntry(
+                    new OverworldResultDTO(UUID.randomUUID(), 50, "testUser", 5),
+                    "testToken",
+                    new Date()
+                )
+            );
+    }
+
+    @AfterEach
+    public void deleteBasicData() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void dispatch_DeliversAndDeletesEntry() {
+        stubSubmit(HttpStatus.OK);
+
+        assertEquals(1, dispatcher.dispatch());
+
+        mockResultsService.verify(
+            1,
+            WireMock
+                .postRequestedFor(WireMock.urlEqualTo(SUBMIT_URL))
+                .withCookie("access_token", WireMock.equalTo("testToken"))
+                .withRequestBody(WireMock.matchingJsonPath("$.userId", WireMock.equalTo("testUser")))
+        );
+        assertFalse(outboxRepository.existsById(entry.getId()));
+    }
+
+    @Test
+    void saveEntry_StoresAccessTokenEncrypted() {
+        final String storedAccessToken = jdbcTemplate.queryForObject(
+            "select access_token from overworld_result_outbox_entry where id = ?",
+            String.class,
+            entry.getId()
+        );
+
+        assertFalse(storedAccessToken.contains("testToken"));
+        assertEquals("testToken", outboxRepository.findById(entry.getId()).orElseThrow().getAccessToken());
+    }
+
+    @Test
+    void dispatch_ServerError_RetriesEntry() {
+        stubSubmit(HttpStatus.SERVICE_UNAVAILABLE);
+
+        dispatcher.dispatch();
+
+        final OverworldResultOutboxEntry retriedEntry = outboxRepository.findById(entry.getId()).orElseThrow();
+        assertEquals(OverworldResultOutboxEntry.Status.PENDING, retriedEntry.getStatus());
+        assertEquals(1, retriedEntry.getAttempts());
+        assertNotNull(retriedEntry.getLastError());
+        assertEquals("testToken", retriedEntry.getAccessToken());
+    }
+
+    @Test
+    void dispatch_TokenOfOtherKey_KeepsEntryPending() {
+        stubSubmit(HttpStatus.OK);
+        final AccessTokenConverter otherConverter = new AccessTokenConverter(
+            Base64.getEncoder().encodeToString(new byte[32])
+        );
+        jdbcTemplate.update(
+            "update overworld_result_outbox_entry set access_token = ? where id = ?",
+            otherConverter.convertToDatabaseColumn("testToken"),
+            entry.getId()
+        );
+
+        dispatcher.dispatch();
+
+        final OverworldResultOutboxEntry pendingEntry = outboxRepository.findById(entry.getId()).orElseThrow();
+        assertEquals(OverworldResultOutboxEntry.Status.PENDING, pendingEntry.getStatus());
+        assertEquals(0, pendingEntry.getAttempts());
+        assertTrue(pendingEntry.getNextAttemptAt().after(new Date()));
+        mockResultsService.verify(0, WireMock.postRequestedFor(WireMock.urlEqualTo(SUBMIT_URL)));
+    }
+
+    @Test
+    void dispatch_ServerErrorTooOften_DeadLettersEntry() {
+        stubSubmit(HttpStatus.SERVICE_UNAVAILABLE);
+
+        for (int i = 0; i < 3; i++) {
+            dispatcher.dispatch();
+        }
+        assertEquals(0, dispatcher.dispatch());
+
+        final OverworldResultOutboxEntry deadEntry = outboxRepository.findById(entry.getId()).orElseThrow();
+        assertEquals(OverworldResultOutboxEntry.Status.DEAD, deadEntry.getStatus());
+        assertEquals(3, deadEntry.getAttempts());
+        mockResultsService.verify(3, WireMock.postRequestedFor(WireMock.urlEqualTo(SUBMIT_URL)));
+    }
+
+    @Test
+    void dispatch_UnknownUser_DeadLettersEntryImmediately() {
+        stubSubmit(HttpStatus.NOT_FOUND);
+
+        dispatcher.dispatch();
+
+        final OverworldResultOutboxEntry deadEntry = outboxRepository.findById(entry.getId()).orElseThrow();
+        assertEquals(OverworldResultOutboxEntry.Status.DEAD, deadEntry.getStatus());
+        assertNull(deadEntry.getAccessToken());
+    }
+
+    private void stubSubmit(final HttpStatus status) {
+        mockResultsService.stubFor(
+            WireMock.post(WireMock.urlEqualTo(SUBMIT_URL)).willReturn(WireMock.aResponse().withStatus(status.value()))
+        );
+    }
+}
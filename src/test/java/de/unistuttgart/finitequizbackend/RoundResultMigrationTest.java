@@ -0,0 +1,149 @@
+package de.unistuttgart.finitequizbackend;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.unistuttgart.finitequizbackend.data.Configuration;
+import de.unistuttgart.finitequizbackend.data.GameResult;
+import de.unistuttgart.finitequizbackend.data.Question;
+import de.unistuttgart.finitequizbackend.data.RoundResult;
+import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
+import de.unistuttgart.finitequizbackend.repositories.GameResultRepository;
+import de.unistuttgart.finitequizbackend.service.RoundResultMigration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RoundResultMigrationTest {
+
+    @Autowired
+    private RoundResultMigration migration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private GameResultRepository gameResultRepository;
+
+    @Autowired
+    private ConfigurationRepository configurationRepository;
+
+    private Configuration configuration;
+    private Question firstQuestion;
+    private Question secondQuestion;
+    private GameResult gameResult;
+
+    @BeforeEach
+    public void createLegacyData() {
+        configuration =
+            configurationRepository.save(
+                new Configuration(
+                    Set.of(
+                        new Question("first question", List.of("answer"), Set.of(), UUID.randomUUID().toString()),
+                        new Question("second question", List.of("answer"), Set.of(), UUID.randomUUID().toString())
+                    )
+                )
+            );
+        final List<Question> questions = new ArrayList<>(configuration.getQuestions());
+        firstQuestion = questions.get(0);
+        secondQuestion = questions.get(1);
+        gameResult =
+            gameResultRepository.save(
+                new GameResult(2, 50, 30, 5, new ArrayList<>(), new ArrayList<>(), configuration.getId(), "testUser")
+            );
+
+        jdbcTemplate.execute(
+            "create table round_result (id uuid primary key, answer varchar(255), question_id uuid references question)"
+        );
+        jdbcTemplate.execute(
+            "create table game_result_correct_answered_questions " +
+            "(game_result_id uuid not null, correct_answered_questions_id uuid not null)"
+        );
+        jdbcTemplate.execute(
+            "create table game_result_wrong_answered_questions " +
+            "(game_result_id uuid not null, wrong_answered_questions_id uuid not null)"
+        );
+        final UUID correctRoundId = UUID.randomUUID();
+        final UUID wrongRoundId = UUID.randomUUID();
+        jdbcTemplate.update("insert into round_result values (?, ?, ?)", correctRoundId, "answer", firstQuestion.getId());
+        jdbcTemplate.update("insert into round_result values (?, ?, ?)", wrongRoundId, "wrong", secondQuestion.getId());
+        jdbcTemplate.update(
+            "insert into game_result_correct_answered_questions values (?, ?)",
+            gameResult.getId(),
+            correctRoundId
+        );
+        jdbcTemplate.update(
+            "insert into game_result_wrong_answered_questions values (?, ?)",
+            gameResult.getId(),
+            wrongRoundId
+        );
+    }
+
+    @AfterEach
+    public void deleteData() {
+        jdbcTemplate.execute("drop table if exists game_result_correct_answered_questions");
+        jdbcTemplate.execute("drop table if exists game_result_wrong_answered_questions");
+        jdbcTemplate.execute("drop table if exists round_result");
+        gameResultRepository.deleteAll();
+        configurationRepository.deleteAll();
+    }
+
+    @Test
+    void migrate_CopiesRoundResultsAndKeepsLegacyTables() {
+        assertEquals(2, migration.migrate());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            final GameResult migratedResult = gameResultRepository
+                .findWithRoundResultsByConfigurationAsUUID(configuration.getId())
+                .get(0);
+            final List<RoundResult> correctAnswers = migratedResult.getCorrectAnsweredQuestions();
+            final List<RoundResult> wrongAnswers = migratedResult.getWrongAnsweredQuestions();
+            assertEquals(1, correctAnswers.size());
+            assertEquals(firstQuestion.getId(), correctAnswers.get(0).getQuestion().getId());
+            assertEquals("answer", correctAnswers.get(0).getAnswer());
+            assertEquals(1, wrongAnswers.size());
+            assertEquals(secondQuestion.getId(), wrongAnswers.get(0).getQuestion().getId());
+            assertEquals("wrong", wrongAnswers.get(0).getAnswer());
+        });
+        // instances of the previous version still read and write the former tables
+        assertTrue(legacyTableExists());
+
+        // a second run finds nothing left to migrate
+        assertEquals(0, migration.migrate());
+    }
+
+    @Test
+    void dropLegacyTables_CopiesRemainingRoundResultsAndDropsLegacyTables() {
+        assertEquals(2, migration.dropLegacyTables());
+
+        assertFalse(legacyTableExists());
+        assertEquals(
+            2,
+            jdbcTemplate.queryForObject(
+                "select count(*) from game_result_round where game_result_id = ?",
+                Integer.class,
+                gameResult.getId()
+            )
+        );
+        assertEquals(0, migration.migrate());
+    }
+
+    private boolean legacyTableExists() {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject("select to_regclass('round_result') is not null", Boolean.class)
+        );
+    }
+}
@@ -0,0 +1,211 @@
+package de.unistuttgart.finitequizbackend;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.finitequizbackend.cache.StatisticCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class StatisticCacheTest {
+
+    private static final String STATISTIC = "test";
+
+    private final UUID configurationId = UUID.randomUUID();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_FreshEntry_ServedWithoutLoading() {
+        final StatisticCache cache = createCache(Duration.ofMinutes(1));
+        final StatisticCache.CachedStatistic<List<Integer>> first = cache.get(configurationId, STATISTIC, countingLoader());
+        final StatisticCache.CachedStatistic<List<Integer>> second = cache.get(
+            configurationId,
+            STATISTIC,
+            countingLoader()
+        );
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertNotNull(first.getETag());
+    }
+
+    @Test
+    void get_StaleEntry_ServedWhileSingleRefreshRuns() throws InterruptedException {
+        final StatisticCache cache = createCache(Duration.ofMinutes(1));
+        cache.get(configurationId, STATISTIC, countingLoader());
+        cache.markStale(configurationId);
+
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch finishRefresh = new CountDownLatch(1);
+        final Supplier<List<Integer>> slowLoader = () -> {
+            refreshStarted.countDown();
+            try {
+                finishRefresh.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(loads.incrementAndGet());
+        };
+        for (int i = 0; i < 5; i++) {
+            assertEquals(List.of(1), cache.get(configurationId, STATISTIC, slowLoader).getValue());
+        }
+        assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+        finishRefresh.countDown();
+
+        // the refreshed statistic replaces the stale one
+        List<Integer> value = List.of(1);
+        for (int i = 0; i < 100 && value.equals(List.of(1)); i++) {
+            Thread.sleep(10);
+            value = cache.get(configurationId, STATISTIC, countingLoader()).getValue();
+        }
+        assertEquals(List.of(2), value);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_StaleLongerThanMaxStaleness_WaitsForRefresh() {
+        final StatisticCache cache = createCache(Duration.ZERO);
+        final StatisticCache.CachedStatistic<List<Integer>> first = cache.get(configurationId, STATISTIC, countingLoader());
+        cache.markStale(configurationId);
+
+        final StatisticCache.CachedStatistic<List<Integer>> second = cache.get(
+            configurationId,
+            STATISTIC,
+            countingLoader()
+        );
+
+        assertEquals(List.of(2), second.getValue());
+        assertNotEquals(first.getETag(), second.getETag());
+    }
+
+    @Test
+    void markStale_DuringRefresh_RefreshedStatisticStaysStale() throws Exception {
+        final StatisticCache cache = createCache(Duration.ZERO);
+        cache.get(configurationId, STATISTIC, countingLoader());
+        cache.markStale(configurationId);
+
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch finishRefresh = new CountDownLatch(1);
+        final CompletableFuture<List<Integer>> refresh = CompletableFuture.supplyAsync(() ->
+            cache.get(configurationId, STATISTIC, blockingLoader(refreshStarted, finishRefresh)).getValue()
+        );
+        assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+
+        // a game result is saved while the refresh reads the former game results
+        cache.markStale(configurationId);
+        finishRefresh.countDown();
+        assertEquals(List.of(2), refresh.get(10, TimeUnit.SECONDS));
+
+        assertEquals(List.of(3), cache.get(configurationId, STATISTIC, countingLoader()).getValue());
+    }
+
+    @Test
+    void markStale_DuringFirstLoad_LoadedStatisticStaysStale() throws Exception {
+        final StatisticCache cache = createCache(Duration.ZERO);
+
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch finishLoad = new CountDownLatch(1);
+        final CompletableFuture<List<Integer>> load = CompletableFuture.supplyAsync(() ->
+            cache.get(configurationId, STATISTIC, blockingLoader(loadStarted, finishLoad)).getValue()
+        );
+        assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+
+        cache.markStale(configurationId);
+        finishLoad.countDown();
+        assertEquals(List.of(1), load.get(10, TimeUnit.SECONDS));
+
+        assertEquals(List.of(2), cache.get(configurationId, STATISTIC, countingLoader()).getValue());
+    }
+
+    @Test
+    void invalidate_DuringRefresh_RefreshedStatisticNotStored() throws InterruptedException {
+        final StatisticCache cache = createCache(Duration.ofMinutes(1));
+        cache.get(configurationId, STATISTIC, countingLoader());
+        cache.markStale(configurationId);
+
+        final CountDownLatch refreshStarted = new CountDownLatch(1);
+        final CountDownLatch finishRefresh = new CountDownLatch(1);
+        final CountDownLatch refreshFinished = new CountDownLatch(1);
+        final Supplier<List<Integer>> outdatedLoader = () -> {
+            refreshStarted.countDown();
+            try {
+                finishRefresh.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            refreshFinished.countDown();
+            return List.of(-1);
+        };
+        assertEquals(List.of(1), cache.get(configurationId, STATISTIC, outdatedLoader).getValue());
+        assertTrue(refreshStarted.await(10, TimeUnit.SECONDS));
+
+        // the configuration changes while the refresh still computes the statistic of the former configuration
+        cache.invalidate(configurationId);
+        assertEquals(List.of(2), cache.get(configurationId, STATISTIC, countingLoader()).getValue());
+
+        finishRefresh.countDown();
+        assertTrue(refreshFinished.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(List.of(2), cache.get(configurationId, STATISTIC, countingLoader()).getValue());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_InTransaction_RemovesStatisticsAgainAfterCompletion() {
+        final StatisticCache cache = createCache(Duration.ofMinutes(1));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate(configurationId);
+            // a read before the commit still computes the statistic of the former configuration
+            assertEquals(List.of(1), cache.get(configurationId, STATISTIC, countingLoader()).getValue());
+            TransactionSynchronizationManager
+                .getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(2), cache.get(configurationId, STATISTIC, countingLoader()).getValue());
+    }
+
+    private StatisticCache createCache(final Duration maxStaleness) {
+        return new StatisticCache(
+            true,
+            100,
+            Duration.ofHours(1),
+            maxStaleness,
+            1,
+            new ObjectMapper(),
+            new SimpleMeterRegistry()
+        );
+    }
+
+    private Supplier<List<Integer>> countingLoader() {
+        return () -> List.of(loads.incrementAndGet());
+    }
+
+    /**
+     * @return a counting loader that signals its start and waits until it may finish
+     */
+    private Supplier<List<Integer>> blockingLoader(final CountDownLatch started, final CountDownLatch finish) {
+        return () -> {
+            started.countDown();
+            try {
+                finish.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(loads.incrementAndGet());
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package de.unistuttgart.finitequizbackend;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import de.unistuttgart.finitequizbackend.clients.ClientGuard;
+import de.unistuttgart.finitequizbackend.clients.OverworldClient;
+import de.unistuttgart.finitequizbackend.data.KeybindingDTO;
+import de.unistuttgart.finitequizbackend.service.VolumeLevelService;
+import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VolumeLevelServiceTest {
+
+    private OverworldClient overworldClient;
+    private JWTValidatorService jwtValidatorService;
+
+    /**
+     * Blocks the calls of the overworld client until it is counted down.
+     */
+    private final CountDownLatch overworldAnswers = new CountDownLatch(1);
+
+    @BeforeEach
+    public void createMocks() {
+        overworldClient = mock(OverworldClient.class);
+        jwtValidatorService = mock(JWTValidatorService.class);
+        when(jwtValidatorService.extractUserId(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    public void releaseOverworldCalls() {
+        overworldAnswers.countDown();
+    }
+
+    @Test
+    void getVolumeLevel_SlowOverworld_FallsBackToLastKnownVolumeLevel() {
+        final VolumeLevelService volumeLevelService = createService(Duration.ofMillis(100), 1);
+        when(overworldClient.getKeybindingStatistic(any(), any(), any()))
+            .thenReturn(new KeybindingDTO("VOLUME_LEVEL", "3"))
+            .thenAnswer(invocation -> {
+                overworldAnswers.await(10, TimeUnit.SECONDS);
+                return new KeybindingDTO("VOLUME_LEVEL", "1");
+            });
+        assertEquals(3, volumeLevelService.getVolumeLevel("player").join());
+
+        final long start = System.nanoTime();
+        assertEquals(3, volumeLevelService.getVolumeLevel("player").join());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        // players without a known volume level get the default volume level
+        assertEquals(0, volumeLevelService.getVolumeLevel("otherPlayer").join());
+    }
+
+    @Test
+    void getVolumeLevel_ExecutorFull_FallsBackWithoutQueueing() {
+        final VolumeLevelService volumeLevelService = createService(Duration.ofMinutes(1), 1);
+        when(overworldClient.getKeybindingStatistic(any(), any(), any()))
+            .thenAnswer(invocation -> {
+                overworldAnswers.await(10, TimeUnit.SECONDS);
+                return new KeybindingDTO("VOLUME_LEVEL", "1");
+            });
+        // one running and 16 queued lookups
+        final List<CompletableFuture<Integer>> lookups = new ArrayList<>();
+        for (int i = 0; i < 17; i++) {
+            lookups.add(volumeLevelService.getVolumeLevel("player" + i));
+        }
+        assertTrue(lookups.stream().noneMatch(CompletableFuture::isDone));
+
+        final CompletableFuture<Integer> rejectedLookup = volumeLevelService.getVolumeLevel("rejectedPlayer");
+        assertTrue(rejectedLookup.isDone());
+        assertEquals(0, rejectedLookup.join());
+
+        overworldAnswers.countDown();
+        for (final CompletableFuture<Integer> lookup : lookups) {
+            assertEquals(1, lookup.join());
+        }
+    }
+
+    private VolumeLevelService createService(final Duration latencyBudget, final int lookupThreads) {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final ClientGuard overworldClientGuard = new ClientGuard(
+            "overworld",
+            lookupThreads,
+            Duration.ZERO,
+            50,
+            20,
+            10,
+            Duration.ofSeconds(30),
+            1,
+            meterRegistry
+        );
+        return new VolumeLevelService(
+            overworldClient,
+            overworldClientGuard,
+            jwtValidatorService,
+            Duration.ZERO,
+            latencyBudget,
+            lookupThreads,
+            meterRegistry
+        );
+    }
+}
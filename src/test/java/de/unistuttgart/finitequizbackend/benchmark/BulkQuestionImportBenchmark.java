@@ -0,0 +1,159 @@
+package de.unistuttgart.finitequizbackend.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doNothing;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unistuttgart.finitequizbackend.data.Configuration;
+import de.unistuttgart.finitequizbackend.data.QuestionDTO;
+import de.unistuttgart.finitequizbackend.data.WrongAnswerDTO;
+import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
+import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.Cookie;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Compares importing a question bank with the bulk endpoint to adding the questions one by one.
+ * Only runs with the benchmark profile: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@Slf4j
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BulkQuestionImportBenchmark {
+
+    private static final int NUMBER_OF_QUESTIONS = 300;
+    private static final int WARMUP_ROUNDS = 2;
+
+    @MockBean
+    JWTValidatorService jwtValidatorService;
+
+    Cookie cookie = new Cookie("access_token", "testToken");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ConfigurationRepository configurationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        configurationRepository.deleteAll();
+        doNothing().when(jwtValidatorService).validateTokenOrThrow("testToken");
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        configurationRepository.deleteAll();
+    }
+
+    @Test
+    void compareBulkImportToOneByOne() throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            importOneByOne(createConfiguration());
+            importBulk(createConfiguration());
+        }
+
+        final UUID oneByOneConfiguration = createConfiguration();
+        statistics.clear();
+        final long oneByOneStart = System.nanoTime();
+        importOneByOne(oneByOneConfiguration);
+        final long oneByOneMillis = (System.nanoTime() - oneByOneStart) / 1_000_000;
+        final long oneByOneStatements = statistics.getPrepareStatementCount();
+
+        final UUID bulkConfiguration = createConfiguration();
+        statistics.clear();
+        final long bulkStart = System.nanoTime();
+        importBulk(bulkConfiguration);
+        final long bulkMillis = (System.nanoTime() - bulkStart) / 1_000_000;
+        final long bulkStatements = statistics.getPrepareStatementCount();
+
+        log.info(
+            "import of {} questions: one by one {} ms ({} statements), bulk {} ms ({} statements)",
+            NUMBER_OF_QUESTIONS,
+            oneByOneMillis,
+            oneByOneStatements,
+            bulkMillis,
+            bulkStatements
+        );
+        assertEquals(NUMBER_OF_QUESTIONS, countQuestions(oneByOneConfiguration));
+        assertEquals(NUMBER_OF_QUESTIONS, countQuestions(bulkConfiguration));
+    }
+
+    private void importOneByOne(final UUID configurationId) throws Exception {
+        for (final QuestionDTO questionDTO : createQuestions()) {
+            mvc
+                .perform(
+                    post("/configurations/" + configurationId + "/questions")
+                        .content(objectMapper.writeValueAsString(questionDTO))
+                        .cookie(cookie)
+                        .contentType(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isCreated());
+        }
+    }
+
+    private void importBulk(final UUID configurationId) throws Exception {
+        mvc
+            .perform(
+                post("/configurations/" + configurationId + "/questions/bulk")
+                    .content(objectMapper.writeValueAsString(createQuestions()))
+                    .cookie(cookie)
+                    .contentType(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isCreated());
+    }
+
+    private UUID createConfiguration() {
+        return configurationRepository.save(new Configuration(new HashSet<>())).getId();
+    }
+
+    private int countQuestions(final UUID configurationId) {
+        return configurationRepository.findWithQuestionsById(configurationId).orElseThrow().getQuestions().size();
+    }
+
+    private static List<QuestionDTO> createQuestions() {
+        final List<QuestionDTO> questionDTOs = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_QUESTIONS; i++) {
+            questionDTOs.add(
+                new QuestionDTO(
+                    "question" + i,
+                    List.of("answer" + i, "alternative answer" + i),
+                    Set.of(
+                        new WrongAnswerDTO(UUID.randomUUID(), "wrong answer" + i),
+                        new WrongAnswerDTO(UUID.randomUUID(), "other wrong answer" + i)
+                    ),
+                    UUID.randomUUID().toString()
+                )
+            );
+        }
+        return questionDTOs;
+    }
+}
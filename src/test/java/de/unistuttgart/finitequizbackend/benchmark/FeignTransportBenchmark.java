@@ -0,0 +1,148 @@
+package de.unistuttgart.finitequizbackend.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import de.unistuttgart.finitequizbackend.clients.PooledHttpClientConfiguration;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the latency of the default Feign transport (a new HttpURLConnection per call) to the pooled transport,
+ * against a local WireMock stand-in for the overworld-backend.
+ * Only runs with the benchmark profile: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@Slf4j
+class FeignTransportBenchmark {
+
+    private static final int NUMBER_OF_CALLS = 2000;
+    private static final int NUMBER_OF_THREADS = 16;
+    private static final String KEYBINDING_PATH = "/players/testUser/keybindings/VOLUME_LEVEL";
+
+    private final Request.Options options = new Request.Options(1000, 2000);
+    private WireMockServer standInServer;
+    private CloseableHttpClient pooledHttpClient;
+
+    @BeforeEach
+    public void startStandInServer() {
+        standInServer = new WireMockServer(WireMockConfiguration.options().dynamicPort());
+        standInServer.start();
+        standInServer.stubFor(
+            WireMock
+                .get(WireMock.urlEqualTo(KEYBINDING_PATH))
+                .willReturn(
+                    WireMock
+                        .aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"binding\":\"VOLUME_LEVEL\",\"key\":\"2\"}")
+                )
+        );
+    }
+
+    @AfterEach
+    public void stopStandInServer() throws Exception {
+        if (pooledHttpClient != null) {
+            pooledHttpClient.close();
+        }
+        standInServer.stop();
+    }
+
+    @Test
+    void comparePooledToDefaultTransport() throws Exception {
+        final Client defaultClient = new Client.Default(null, null);
+        final PooledHttpClientConfiguration configuration = new PooledHttpClientConfiguration();
+        pooledHttpClient =
+            configuration.feignHttpClient(
+                configuration.feignConnectionManager(
+                    200,
+                    NUMBER_OF_THREADS,
+                    Duration.ofMinutes(10),
+                    Duration.ofSeconds(2),
+                    new SimpleMeterRegistry()
+                ),
+                Duration.ofSeconds(30),
+                Duration.ofSeconds(60)
+            );
+        final Client pooledClient = configuration.feignClient(pooledHttpClient, Duration.ofSeconds(1), false, 2048);
+
+        // warm up both transports
+        measure(defaultClient, NUMBER_OF_CALLS / 10);
+        measure(pooledClient, NUMBER_OF_CALLS / 10);
+
+        final long[] defaultLatencies = measure(defaultClient, NUMBER_OF_CALLS);
+        final long[] pooledLatencies = measure(pooledClient, NUMBER_OF_CALLS);
+
+        log.info(
+            "{} calls from {} threads: default p50 {} us, p99 {} us; pooled p50 {} us, p99 {} us",
+            NUMBER_OF_CALLS,
+            NUMBER_OF_THREADS,
+            percentile(defaultLatencies, 50),
+            percentile(defaultLatencies, 99),
+            percentile(pooledLatencies, 50),
+            percentile(pooledLatencies, 99)
+        );
+    }
+
+    /**
+     * @return the latency of each call in microseconds, sorted
+     */
+    private long[] measure(final Client client, final int calls) throws Exception {
+        final ExecutorService threads = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+        try {
+            final List<Future<Long>> latencies = new ArrayList<>();
+            for (int i = 0; i < calls; i++) {
+                latencies.add(threads.submit(() -> call(client)));
+            }
+            final long[] result = new long[calls];
+            for (int i = 0; i < calls; i++) {
+                result[i] = latencies.get(i).get();
+            }
+            Arrays.sort(result);
+            return result;
+        } finally {
+            threads.shutdown();
+        }
+    }
+
+    private long call(final Client client) throws Exception {
+        final Request request = Request.create(
+            Request.HttpMethod.GET,
+            standInServer.baseUrl() + KEYBINDING_PATH,
+            Map.of("Cookie", List.of("access_token=testToken")),
+            null,
+            StandardCharsets.UTF_8,
+            null
+        );
+        final long start = System.nanoTime();
+        try (Response response = client.execute(request, options)) {
+            assertEquals(200, response.status());
+            Util.toByteArray(response.body().asInputStream());
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    private static long percentile(final long[] sortedLatencies, final int percentile) {
+        return sortedLatencies[Math.min(sortedLatencies.length - 1, sortedLatencies.length * percentile / 100)];
+    }
+}
@@ -0,0 +1,160 @@
+package de.unistuttgart.finitequizbackend.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.unistuttgart.finitequizbackend.data.*;
+import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
+import de.unistuttgart.finitequizbackend.repositories.GameResultRepository;
+import de.unistuttgart.finitequizbackend.repositories.OverworldResultOutboxRepository;
+import de.unistuttgart.finitequizbackend.service.GameResultWriteBehindQueue;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares the throughput of writing game results with one transaction per result (the default) to the
+ * write-behind queue, with a whole class submitting results at the same time.
+ * Only runs with the benchmark profile: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@Slf4j
+@SpringBootTest(
+    properties = {
+        "finitequiz.results.write-behind.enabled=true",
+        "finitequiz.outbox.initial-delay-ms=3600000",
+    }
+)
+class GameResultWriteBehindBenchmark {
+
+    private static final int NUMBER_OF_RESULTS = 2000;
+    private static final int NUMBER_OF_CLIENTS = 32;
+    private static final int NUMBER_OF_QUESTIONS = 10;
+
+    @Autowired
+    private GameResultWriteBehindQueue writeBehindQueue;
+
+    @Autowired
+    private GameResultRepository gameResultRepository;
+
+    @Autowired
+    private OverworldResultOutboxRepository outboxRepository;
+
+    @Autowired
+    private ConfigurationRepository configurationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Configuration configuration;
+
+    @BeforeEach
+    public void setUp() {
+        deleteAll();
+        final Set<Question> questions = new HashSet<>();
+        for (int i = 0; i < NUMBER_OF_QUESTIONS; i++) {
+            questions.add(new Question("question" + i, List.of("answer" + i), Set.of(), UUID.randomUUID().toString()));
+        }
+        configuration = configurationRepository.save(new Configuration(questions));
+    }
+
+    @AfterEach
+    public void deleteAll() {
+        outboxRepository.deleteAll();
+        gameResultRepository.deleteAll();
+        configurationRepository.deleteAll();
+    }
+
+    @Test
+    void compareWriteBehindToPerRequestSave() throws Exception {
+        final long perRequestMillis = submitConcurrently(result ->
+            transactionTemplate.executeWithoutResult(status -> {
+                gameResultRepository.save(result.gameResult());
+                outboxRepository.save(result.outboxEntry());
+            })
+        );
+        assertEquals(NUMBER_OF_RESULTS, gameResultRepository.count());
+        outboxRepository.deleteAll();
+        gameResultRepository.deleteAll();
+
+        final long writeBehindMillis = submitConcurrently(result -> {
+            writeBehindQueue.enqueue(result.gameResult(), result.outboxEntry(), () -> {});
+        });
+        final long writeBehindDrainedMillis = writeBehindMillis + waitUntilWritten();
+
+        log.info(
+            "{} results from {} clients: per request {} results/s, write-behind {} results/s accepted, {} results/s written",
+            NUMBER_OF_RESULTS,
+            NUMBER_OF_CLIENTS,
+            NUMBER_OF_RESULTS * 1000L / Math.max(1, perRequestMillis),
+            NUMBER_OF_RESULTS * 1000L / Math.max(1, writeBehindMillis),
+            NUMBER_OF_RESULTS * 1000L / Math.max(1, writeBehindDrainedMillis)
+        );
+        assertEquals(NUMBER_OF_RESULTS, gameResultRepository.count());
+    }
+
+    private long submitConcurrently(final Consumer<SubmittedResult> submit) throws Exception {
+        final ExecutorService clients = Executors.newFixedThreadPool(NUMBER_OF_CLIENTS);
+        try {
+            final long start = System.nanoTime();
+            final List<Future<?>> submissions = new ArrayList<>();
+            for (int i = 0; i < NUMBER_OF_RESULTS; i++) {
+                submissions.add(clients.submit(() -> submit.accept(createResult())));
+            }
+            for (final Future<?> submission : submissions) {
+                submission.get();
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private long waitUntilWritten() throws InterruptedException {
+        final long start = System.nanoTime();
+        while (gameResultRepository.count() < NUMBER_OF_RESULTS) {
+            Thread.sleep(10);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private SubmittedResult createResult() {
+        final List<RoundResult> correctAnswers = new ArrayList<>();
+        for (final Question question : configuration.getQuestions()) {
+            correctAnswers.add(new RoundResult(question, question.getRightAnswer().get(0)));
+        }
+        final String userId = UUID.randomUUID().toString();
+        final GameResult gameResult = new GameResult(
+            NUMBER_OF_QUESTIONS,
+            100,
+            60,
+            10,
+            correctAnswers,
+            new ArrayList<>(),
+            configuration.getId(),
+            userId
+        );
+        final OverworldResultOutboxEntry outboxEntry = new OverworldResultOutboxEntry(
+            new OverworldResultDTO(configuration.getId(), 100, userId, 10),
+            "testToken",
+            new Date()
+        );
+        return new SubmittedResult(gameResult, outboxEntry);
+    }
+
+    private record SubmittedResult(GameResult gameResult, OverworldResultOutboxEntry outboxEntry) {}
+}
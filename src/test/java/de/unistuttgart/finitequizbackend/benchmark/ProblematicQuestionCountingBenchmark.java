@@ -0,0 +1,126 @@
+package de.unistuttgart.finitequizbackend.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.unistuttgart.finitequizbackend.data.QuestionDTO;
+import de.unistuttgart.finitequizbackend.data.statistic.ProblematicQuestion;
+import de.unistuttgart.finitequizbackend.service.QuestionAnswerCounter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares counting the round results of 10k to 1M game results with a linear search of the problematic question of
+ * every round result (the former implementation) to the QuestionAnswerCounter.
+ * Only runs with the benchmark profile: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@Slf4j
+class ProblematicQuestionCountingBenchmark {
+
+    private static final int[] NUMBER_OF_GAME_RESULTS = { 10_000, 100_000, 1_000_000 };
+    private static final int NUMBER_OF_QUESTIONS = 20;
+    private static final int ROUNDS_PER_GAME_RESULT = 10;
+    private static final int MAX_PROBLEMATIC_QUESTIONS = 5;
+    private static final int WARMUP_ITERATIONS = 3;
+
+    @Test
+    void compareCounterToLinearSearch() {
+        final List<UUID> questionIds = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_QUESTIONS; i++) {
+            questionIds.add(UUID.randomUUID());
+        }
+        for (final int numberOfGameResults : NUMBER_OF_GAME_RESULTS) {
+            final int rounds = numberOfGameResults * ROUNDS_PER_GAME_RESULT;
+            final UUID[] answeredQuestions = new UUID[rounds];
+            final boolean[] correct = new boolean[rounds];
+            final Random random = new Random(numberOfGameResults);
+            for (int i = 0; i < rounds; i++) {
+                answeredQuestions[i] = questionIds.get(random.nextInt(NUMBER_OF_QUESTIONS));
+                correct[i] = random.nextInt(10) > 3;
+            }
+
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                countWithLinearSearch(questionIds, answeredQuestions, correct);
+                countWithCounter(questionIds, answeredQuestions, correct);
+            }
+            long start = System.nanoTime();
+            final int linearSearchAttempts = countWithLinearSearch(questionIds, answeredQuestions, correct);
+            final long linearSearchMillis = (System.nanoTime() - start) / 1_000_000;
+            start = System.nanoTime();
+            final int counterAttempts = countWithCounter(questionIds, answeredQuestions, correct);
+            final long counterMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(linearSearchAttempts, counterAttempts);
+            log.info(
+                "{} game results with {} rounds each: linear search {} ms, counter {} ms",
+                numberOfGameResults,
+                ROUNDS_PER_GAME_RESULT,
+                linearSearchMillis,
+                counterMillis
+            );
+        }
+    }
+
+    /**
+     * @return the number of counted round results, to compare the results and keep the work observable
+     */
+    private int countWithLinearSearch(final List<UUID> questionIds, final UUID[] answeredQuestions, final boolean[] correct) {
+        final List<ProblematicQuestion> problematicQuestions = new ArrayList<>();
+        for (final UUID questionId : questionIds) {
+            final QuestionDTO question = new QuestionDTO();
+            question.setId(questionId);
+            problematicQuestions.add(new ProblematicQuestion(0, 0, 0, question));
+        }
+        for (int i = 0; i < answeredQuestions.length; i++) {
+            final UUID questionId = answeredQuestions[i];
+            final boolean correctAnswer = correct[i];
+            problematicQuestions
+                .stream()
+                .filter(problematicQuestion -> problematicQuestion.getQuestion().getId().equals(questionId))
+                .findAny()
+                .ifPresent(problematicQuestion -> {
+                    if (correctAnswer) {
+                        problematicQuestion.addCorrectAnswer();
+                    } else {
+                        problematicQuestion.addWrongAnswer();
+                    }
+                });
+        }
+        problematicQuestions.sort((o1, o2) ->
+            Double.compare(
+                (double) o2.getWrongAnswers() / o2.getAttempts(),
+                (double) o1.getWrongAnswers() / o1.getAttempts()
+            )
+        );
+        return problematicQuestions
+            .subList(0, MAX_PROBLEMATIC_QUESTIONS)
+            .stream()
+            .mapToInt(ProblematicQuestion::getAttempts)
+            .sum() +
+            problematicQuestions
+                .subList(MAX_PROBLEMATIC_QUESTIONS, problematicQuestions.size())
+                .stream()
+                .mapToInt(ProblematicQuestion::getAttempts)
+                .sum();
+    }
+
+    private int countWithCounter(final List<UUID> questionIds, final UUID[] answeredQuestions, final boolean[] correct) {
+        final QuestionAnswerCounter counter = new QuestionAnswerCounter(questionIds);
+        for (int i = 0; i < answeredQuestions.length; i++) {
+            counter.count(answeredQuestions[i], correct[i]);
+        }
+        final List<Integer> mostProblematic = counter.selectMostProblematic(MAX_PROBLEMATIC_QUESTIONS);
+        int attempts = mostProblematic.stream().mapToInt(counter::getAttempts).sum();
+        for (final UUID questionId : questionIds) {
+            if (!mostProblematic.contains(counter.indexOf(questionId))) {
+                attempts += counter.getAttempts(counter.indexOf(questionId));
+            }
+        }
+        return attempts;
+    }
+}
@@ -0,0 +1,140 @@
+package de.unistuttgart.finitequizbackend.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.unistuttgart.finitequizbackend.data.*;
+import de.unistuttgart.finitequizbackend.data.statistic.ProblematicQuestion;
+import de.unistuttgart.finitequizbackend.data.statistic.TimeSpentDistribution;
+import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
+import de.unistuttgart.finitequizbackend.repositories.GameResultRepository;
+import de.unistuttgart.finitequizbackend.service.StatisticCounterService;
+import de.unistuttgart.finitequizbackend.service.StatisticService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares the latency of the statistics endpoints with the statistics computed in the JVM from the loaded game
+ * results (GAME_RESULTS), computed by the database (DATABASE) and read from the precomputed counters (COUNTERS).
+ * Only runs with the benchmark profile: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@Slf4j
+@SpringBootTest(properties = "finitequiz.outbox.initial-delay-ms=3600000")
+class StatisticEngineBenchmark {
+
+    private static final int NUMBER_OF_GAME_RESULTS = 20_000;
+    private static final int NUMBER_OF_QUESTIONS = 10;
+    private static final int ITERATIONS = 10;
+
+    @Autowired
+    private StatisticService statisticService;
+
+    @Autowired
+    private StatisticCounterService statisticCounterService;
+
+    @Autowired
+    private GameResultRepository gameResultRepository;
+
+    @Autowired
+    private ConfigurationRepository configurationRepository;
+
+    private Configuration configuration;
+
+    @BeforeEach
+    public void setUp() {
+        deleteAll();
+        final Set<Question> questions = new HashSet<>();
+        for (int i = 0; i < NUMBER_OF_QUESTIONS; i++) {
+            questions.add(new Question("question" + i, List.of("answer" + i), Set.of(), UUID.randomUUID().toString()));
+        }
+        configuration = configurationRepository.save(new Configuration(questions));
+        final Random random = new Random(42);
+        final List<GameResult> gameResults = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_GAME_RESULTS; i++) {
+            final List<RoundResult> correctAnswers = new ArrayList<>();
+            final List<RoundResult> wrongAnswers = new ArrayList<>();
+            for (final Question question : configuration.getQuestions()) {
+                if (random.nextInt(10) > 3) {
+                    correctAnswers.add(new RoundResult(question, question.getRightAnswer().get(0)));
+                } else {
+                    wrongAnswers.add(new RoundResult(question, "wrong"));
+                }
+            }
+            gameResults.add(
+                new GameResult(
+                    NUMBER_OF_QUESTIONS,
+                    correctAnswers.size() * 10L,
+                    Math.round(120 * Math.exp(random.nextGaussian())),
+                    correctAnswers.size(),
+                    correctAnswers,
+                    wrongAnswers,
+                    configuration.getId(),
+                    UUID.randomUUID().toString()
+                )
+            );
+        }
+        gameResultRepository.saveAll(gameResults);
+        statisticCounterService.rebuild();
+    }
+
+    @AfterEach
+    public void deleteAll() {
+        gameResultRepository.deleteAll();
+        configurationRepository.deleteAll();
+        statisticCounterService.rebuild();
+    }
+
+    @Test
+    void compareStatisticEngines() {
+        for (final StatisticService.Engine engine : StatisticService.Engine.values()) {
+            ReflectionTestUtils.setField(AopTestUtils.getTargetObject(statisticService), "engine", engine);
+            // warm up
+            final List<ProblematicQuestion> problematicQuestions = statisticService.getProblematicQuestions(
+                configuration.getId()
+            );
+            final List<TimeSpentDistribution> timeSpentDistributions = statisticService.getTimeSpentDistributions(
+                configuration.getId()
+            );
+            assertEquals(
+                NUMBER_OF_GAME_RESULTS,
+                timeSpentDistributions.stream().mapToInt(TimeSpentDistribution::getCount).sum()
+            );
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                statisticService.getProblematicQuestions(configuration.getId());
+            }
+            final long problematicQuestionsMillis = (System.nanoTime() - start) / 1_000_000 / ITERATIONS;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                statisticService.getTimeSpentDistributions(configuration.getId());
+            }
+            final long timeSpentMillis = (System.nanoTime() - start) / 1_000_000 / ITERATIONS;
+
+            log.info(
+                "{} game results, engine {}: problematic questions {} ms, time spent distribution {} ms, " +
+                "most problematic question {} of {} wrong, time spent quarters {}",
+                NUMBER_OF_GAME_RESULTS,
+                engine,
+                problematicQuestionsMillis,
+                timeSpentMillis,
+                problematicQuestions.get(0).getWrongAnswers(),
+                problematicQuestions.get(0).getAttempts(),
+                timeSpentDistributions.stream().map(TimeSpentDistribution::getToTime).toList()
+            );
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package de.unistuttgart.finitequizbackend.statistic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.unistuttgart.finitequizbackend.service.QuestionAnswerCounter;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class QuestionAnswerCounterTest {
+
+    private final UUID firstQuestion = UUID.randomUUID();
+    private final UUID secondQuestion = UUID.randomUUID();
+    private final UUID thirdQuestion = UUID.randomUUID();
+    private final UUID neverAttemptedQuestion = UUID.randomUUID();
+
+    @Test
+    void selectMostProblematic_OrdersByPercentageOfWrongAnswers() {
+        final QuestionAnswerCounter counter = new QuestionAnswerCounter(
+            List.of(neverAttemptedQuestion, firstQuestion, secondQuestion, thirdQuestion)
+        );
+        // 1 of 2 wrong
+        counter.count(firstQuestion, true);
+        counter.count(firstQuestion, false);
+        // 3 of 4 wrong
+        counter.add(secondQuestion, 1, 3);
+        // 2 of 4 wrong, same percentage as the first question but more wrong answers
+        counter.add(thirdQuestion, 2, 2);
+        counter.count(UUID.randomUUID(), false);
+
+        final List<Integer> mostProblematic = counter.selectMostProblematic(4);
+
+        assertEquals(
+            List.of(
+                counter.indexOf(secondQuestion),
+                counter.indexOf(thirdQuestion),
+                counter.indexOf(firstQuestion),
+                counter.indexOf(neverAttemptedQuestion)
+            ),
+            mostProblematic
+        );
+        assertEquals(4, counter.getAttempts(counter.indexOf(secondQuestion)));
+        assertEquals(3, counter.getWrongAnswers(counter.indexOf(secondQuestion)));
+        assertEquals(0, counter.getAttempts(counter.indexOf(neverAttemptedQuestion)));
+    }
+
+    @Test
+    void selectMostProblematic_NeverAttemptedQuestionsAfterAttemptedOnes() {
+        final QuestionAnswerCounter counter = new QuestionAnswerCounter(
+            List.of(neverAttemptedQuestion, firstQuestion, secondQuestion)
+        );
+        counter.count(firstQuestion, true);
+        counter.count(secondQuestion, true);
+
+        assertEquals(
+            List.of(counter.indexOf(firstQuestion), counter.indexOf(secondQuestion)),
+            counter.selectMostProblematic(2)
+        );
+        assertTrue(counter.selectMostProblematic(0).isEmpty());
+    }
+}
@@ -3,6 +3,7 @@ package de.unistuttgart.finitequizbackend.statistic;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.doNothing;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,9 +13,13 @@ import de.unistuttgart.finitequizbackend.data.statistic.ProblematicQuestion;
 import de.unistuttgart.finitequizbackend.data.statistic.TimeSpentDistribution;
 import de.unistuttgart.finitequizbackend.repositories.ConfigurationRepository;
 import de.unistuttgart.finitequizbackend.repositories.GameResultRepository;
+import de.unistuttgart.finitequizbackend.repositories.QuestionStatisticRepository;
 import de.unistuttgart.finitequizbackend.service.GameResultService;
+import de.unistuttgart.finitequizbackend.service.StatisticCounterService;
+import de.unistuttgart.finitequizbackend.service.StatisticService;
 import de.unistuttgart.gamifyit.authentificationvalidator.JWTValidatorService;
 import java.util.*;
+import java.util.stream.Stream;
 import javax.servlet.http.Cookie;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,8 +28,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
 
 @AutoConfigureMockMvc
@@ -54,6 +62,15 @@ class StatisticTest {
     @Autowired
     private ConfigurationRepository configurationRepository;
 
+    @Autowired
+    private QuestionStatisticRepository questionStatisticRepository;
+
+    @Autowired
+    private StatisticCounterService statisticCounterService;
+
+    @Autowired
+    private StatisticService statisticService;
+
     private ObjectMapper objectMapper;
 
     private Configuration randomConfiguration;
@@ -62,6 +79,7 @@ class StatisticTest {
     private QuestionDTO problematicQuestion;
     private QuestionDTO bestAnsweredQuestion;
     private List<GameResult> gameResults;
+    private List<GameResult> staticGameResults;
 
     @BeforeEach
     public void createBasicData() {
@@ -69,7 +87,7 @@ class StatisticTest {
 
         Set<Question> questions = new HashSet<>();
         for (int i = 0; i < 6; i++) {
-            questions.add(new Question("question" + i, "answer" + i, Set.of("answer2", "answer3", "answer4")));
+            questions.add(createQuestion(i));
         }
 
         randomConfiguration = new Configuration();
@@ -83,11 +101,13 @@ class StatisticTest {
             gameResult.setConfigurationAsUUID(randomConfiguration.getId());
             gameResult.setPlayerId(UUID.randomUUID().toString());
             gameResult.setPlayedTime(new Date());
+            // below 64 seconds the histograms of the COUNTERS engine have exact borders
+            gameResult.setTimeSpent(new Random().nextInt(60));
             List<RoundResult> wrongAnswers = new ArrayList<>();
             List<RoundResult> correctAnswers = new ArrayList<>();
             for (Question question : randomConfiguration.getQuestions()) {
                 if (new Random().nextInt(10) > 3) {
-                    correctAnswers.add(new RoundResult(question, question.getRightAnswer()));
+                    correctAnswers.add(new RoundResult(question, question.getRightAnswer().get(0)));
                 } else {
                     wrongAnswers.add(new RoundResult(question, UUID.randomUUID().toString()));
                 }
@@ -102,7 +122,7 @@ class StatisticTest {
 
         questions = new HashSet<>();
         for (int i = 0; i < 6; i++) {
-            questions.add(new Question("question" + i, "answer" + i, Set.of("answer2", "answer3", "answer4")));
+            questions.add(createQuestion(i));
         }
 
         staticConfiguration = new Configuration();
@@ -117,7 +137,7 @@ class StatisticTest {
         gameResult1.setPlayedTime(new Date());
         List<RoundResult> wrongAnswers1 = new ArrayList<>();
         List<RoundResult> rightAnswers1 = new ArrayList<>();
-        rightAnswers1.add(new RoundResult(questionList.get(0), questionList.get(0).getRightAnswer()));
+        rightAnswers1.add(new RoundResult(questionList.get(0), questionList.get(0).getRightAnswer().get(0)));
         for (int i = 1; i < questionList.size(); i++) {
             wrongAnswers1.add(new RoundResult(questionList.get(i), UUID.randomUUID().toString()));
         }
@@ -131,7 +151,7 @@ class StatisticTest {
         gameResult2.setPlayedTime(new Date());
         List<RoundResult> wrongAnswers2 = new ArrayList<>();
         List<RoundResult> rightAnswers2 = new ArrayList<>();
-        rightAnswers2.add(new RoundResult(questionList.get(0), questionList.get(0).getRightAnswer()));
+        rightAnswers2.add(new RoundResult(questionList.get(0), questionList.get(0).getRightAnswer().get(0)));
         for (int i = 1; i < questionList.size(); i++) {
             wrongAnswers2.add(new RoundResult(questionList.get(i), UUID.randomUUID().toString()));
         }
@@ -146,7 +166,7 @@ class StatisticTest {
         List<RoundResult> wrongAnswers3 = new ArrayList<>();
         List<RoundResult> rightAnswers3 = new ArrayList<>();
         for (int i = 0; i < 2; i++) {
-            rightAnswers3.add(new RoundResult(questionList.get(i), questionList.get(i).getRightAnswer()));
+            rightAnswers3.add(new RoundResult(questionList.get(i), questionList.get(i).getRightAnswer().get(0)));
         }
         for (int i = 2; i < questionList.size(); i++) {
             wrongAnswers3.add(new RoundResult(questionList.get(i), UUID.randomUUID().toString()));
@@ -162,7 +182,7 @@ class StatisticTest {
         List<RoundResult> wrongAnswers4 = new ArrayList<>();
         List<RoundResult> rightAnswers4 = new ArrayList<>();
         for (int i = 0; i < 5; i++) {
-            rightAnswers4.add(new RoundResult(questionList.get(i), questionList.get(i).getRightAnswer()));
+            rightAnswers4.add(new RoundResult(questionList.get(i), questionList.get(i).getRightAnswer().get(0)));
         }
         for (int i = 5; i < questionList.size(); i++) {
             wrongAnswers4.add(new RoundResult(questionList.get(i), UUID.randomUUID().toString()));
@@ -176,7 +196,9 @@ class StatisticTest {
         problematicQuestion = questionMapper.questionToQuestionDTO(questionList.get(5));
         bestAnsweredQuestion = questionMapper.questionToQuestionDTO(questionList.get(0));
 
-        gameResultRepository.saveAll(List.of(gameResult1, gameResult2, gameResult3, gameResult4));
+        staticGameResults = gameResultRepository.saveAll(List.of(gameResult1, gameResult2, gameResult3, gameResult4));
+        // the game results were saved without the GameResultService, so the statistics are counted here
+        statisticCounterService.rebuild();
 
         objectMapper = new ObjectMapper();
         doNothing().when(jwtValidatorService).validateTokenOrThrow("testToken");
@@ -213,6 +235,82 @@ class StatisticTest {
         assertSame(5, problematicQuestions.size());
     }
 
+    @Test
+    void testGetProblematicQuestions_MatchingETag_NotModified() throws Exception {
+        final MvcResult result = mvc
+            .perform(get(API_URL + "/" + staticConfiguration.getId() + "/problematic-questions").cookie(cookie))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andReturn();
+
+        mvc
+            .perform(
+                get(API_URL + "/" + staticConfiguration.getId() + "/problematic-questions")
+                    .cookie(cookie)
+                    .header(HttpHeaders.IF_NONE_MATCH, result.getResponse().getHeader(HttpHeaders.ETAG))
+            )
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testCountRoundResults_SameCountersAsRebuild() {
+        final List<QuestionStatistic> rebuiltStatistics = questionStatisticRepository.findByConfigurationId(
+            staticConfiguration.getId()
+        );
+
+        questionStatisticRepository.countRoundResults(staticGameResults);
+
+        final List<QuestionStatistic> countedStatistics = questionStatisticRepository.findByConfigurationId(
+            staticConfiguration.getId()
+        );
+        assertEquals(staticConfiguration.getQuestions().size(), countedStatistics.size());
+        for (final QuestionStatistic rebuiltStatistic : rebuiltStatistics) {
+            final QuestionStatistic countedStatistic = countedStatistics
+                .stream()
+                .filter(statistic -> statistic.getQuestionId().equals(rebuiltStatistic.getQuestionId()))
+                .findAny()
+                .orElseThrow();
+            assertEquals(2 * rebuiltStatistic.getAttempts(), countedStatistic.getAttempts());
+            assertEquals(2 * rebuiltStatistic.getCorrectAnswers(), countedStatistic.getCorrectAnswers());
+            assertEquals(2 * rebuiltStatistic.getWrongAnswers(), countedStatistic.getWrongAnswers());
+        }
+    }
+
+    @Test
+    void testStatisticEngines_SameProblematicQuestionsAndTimeSpentCounts() {
+        final Object statisticServiceTarget = AopTestUtils.getTargetObject(statisticService);
+        try {
+            final Map<StatisticService.Engine, List<ProblematicQuestion>> problematicQuestions = new HashMap<>();
+            final Map<StatisticService.Engine, List<Integer>> timeSpentCounts = new HashMap<>();
+            final Map<StatisticService.Engine, List<Double>> timeSpentBorders = new HashMap<>();
+            for (final StatisticService.Engine engine : StatisticService.Engine.values()) {
+                ReflectionTestUtils.setField(statisticServiceTarget, "engine", engine);
+                problematicQuestions.put(engine, statisticService.getProblematicQuestions(randomConfiguration.getId()));
+                final List<TimeSpentDistribution> timeSpentDistributions = statisticService.getTimeSpentDistributions(
+                    randomConfiguration.getId()
+                );
+                timeSpentCounts.put(engine, timeSpentDistributions.stream().map(TimeSpentDistribution::getCount).toList());
+                timeSpentBorders.put(
+                    engine,
+                    timeSpentDistributions
+                        .stream()
+                        .flatMap(distribution -> Stream.of(distribution.getFromTime(), distribution.getToTime()))
+                        .toList()
+                );
+            }
+            for (final StatisticService.Engine engine : StatisticService.Engine.values()) {
+                assertEquals(
+                    problematicQuestions.get(StatisticService.Engine.GAME_RESULTS),
+                    problematicQuestions.get(engine)
+                );
+                assertEquals(timeSpentCounts.get(StatisticService.Engine.GAME_RESULTS), timeSpentCounts.get(engine));
+                assertEquals(timeSpentBorders.get(StatisticService.Engine.GAME_RESULTS), timeSpentBorders.get(engine));
+            }
+        } finally {
+            ReflectionTestUtils.setField(statisticServiceTarget, "engine", StatisticService.Engine.COUNTERS);
+        }
+    }
+
     @Test
     void testGetTimeSpentDistribution() throws Exception {
         final MvcResult result = mvc
@@ -230,4 +328,19 @@ class StatisticTest {
         long amountOfGameResults = timeSpentDistributions.stream().map(TimeSpentDistribution::getCount).count();
         assertEquals(numberOfGameResultsOfStaticConfiguration, amountOfGameResults);
     }
+
+    private static Question createQuestion(final int index) {
+        return new Question(
+            "question" + index,
+            new ArrayList<>(List.of("answer" + index)),
+            new HashSet<>(
+                Set.of(
+                    new WrongAnswer(UUID.randomUUID(), "answer2"),
+                    new WrongAnswer(UUID.randomUUID(), "answer3"),
+                    new WrongAnswer(UUID.randomUUID(), "answer4")
+                )
+            ),
+            UUID.randomUUID().toString()
+        );
+    }
 }
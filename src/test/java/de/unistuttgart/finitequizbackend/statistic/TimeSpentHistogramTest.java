@@ -0,0 +1,75 @@
+package de.unistuttgart.finitequizbackend.statistic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.unistuttgart.finitequizbackend.service.TimeSpentHistogram;
+import java.util.Arrays;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+class TimeSpentHistogramTest {
+
+    private static final int NUMBER_OF_TIMES = 100_000;
+
+    /**
+     * The ranks read by the time spent distribution: the first and the last rank of each quarter.
+     */
+    private static final double[] QUANTILES = { 0, 0.25, 0.5, 0.75, 1 };
+
+    @Test
+    void bucketOf_BoundsContainTheTime() {
+        for (long time = 0; time < 1_000_000; time++) {
+            final int bucket = TimeSpentHistogram.bucketOf(time);
+            assertTrue(TimeSpentHistogram.lowerBoundOf(bucket) <= time);
+            assertTrue(TimeSpentHistogram.upperBoundOf(bucket) >= time);
+        }
+        assertEquals(TimeSpentHistogram.BUCKET_COUNT - 1, TimeSpentHistogram.bucketOf(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, TimeSpentHistogram.upperBoundOf(TimeSpentHistogram.BUCKET_COUNT - 1));
+        assertEquals(0, TimeSpentHistogram.bucketOf(-1));
+    }
+
+    @Test
+    void estimateAtRank_WithinErrorBoundOfExactTime() {
+        final Random random = new Random(42);
+        final long[] times = new long[NUMBER_OF_TIMES];
+        final TimeSpentHistogram histogram = new TimeSpentHistogram();
+        for (int i = 0; i < NUMBER_OF_TIMES; i++) {
+            // log-normal around two minutes, up to a few hours
+            times[i] = Math.round(120 * Math.exp(random.nextGaussian()));
+            histogram.add(times[i]);
+        }
+        Arrays.sort(times);
+
+        double maxRelativeError = 0;
+        for (final double quantile : QUANTILES) {
+            for (final long rank : new long[] {
+                (long) Math.ceil(quantile * NUMBER_OF_TIMES) - 1,
+                (long) Math.ceil(quantile * NUMBER_OF_TIMES),
+            }) {
+                if (rank < 0 || rank >= NUMBER_OF_TIMES) {
+                    continue;
+                }
+                final long exact = times[(int) rank];
+                final long estimate = histogram.estimateAtRank(rank);
+                if (exact < 2 * TimeSpentHistogram.SUB_BUCKETS) {
+                    assertEquals(exact, estimate);
+                }
+                final double relativeError = Math.abs(estimate - exact) / (double) Math.max(1, exact);
+                assertTrue(
+                    relativeError <= 1.0 / (2 * TimeSpentHistogram.SUB_BUCKETS),
+                    String.format("estimate %s of rank %s is too far from %s", estimate, rank, exact)
+                );
+                maxRelativeError = Math.max(maxRelativeError, relativeError);
+            }
+        }
+        log.info(
+            "maximal relative error of the time spent borders: {} % (bound {} %)",
+            String.format("%.3f", 100 * maxRelativeError),
+            String.format("%.3f", 100.0 / (2 * TimeSpentHistogram.SUB_BUCKETS))
+        );
+        assertEquals(NUMBER_OF_TIMES, histogram.getTotalCount());
+        assertThrows(IllegalArgumentException.class, () -> histogram.estimateAtRank(NUMBER_OF_TIMES));
+    }
+}